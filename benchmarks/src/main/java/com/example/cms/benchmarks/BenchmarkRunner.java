@@ -0,0 +1,42 @@
+package com.example.cms.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Entry point of benchmarks.jar. Accepts the usual JMH command line (e.g. a benchmark regex,
+// -p students=1000, -rf/-rff), but defaults to the GC profiler and a JSON result file so runs can
+// be compared, e.g. with https://jmh.morethan.io or by diffing the files.
+public class BenchmarkRunner {
+
+    private static final Path DEFAULT_RESULT = Path.of("target", "jmh-result.json");
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        boolean gcProfiled = commandLine.getProfilers().stream()
+                .anyMatch(profiler -> profiler.getKlass().equals(GCProfiler.class.getName()));
+        if (!gcProfiled) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            Files.createDirectories(DEFAULT_RESULT.getParent());
+            builder.result(DEFAULT_RESULT.toString());
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
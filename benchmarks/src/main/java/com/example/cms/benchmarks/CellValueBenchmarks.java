@@ -0,0 +1,177 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.models.Student;
+import com.example.cms.models.StudentStore;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What a TableView does while scrolling: ask every visible cell for its value.
+// Steady state (one screen, visited in earlier iterations): a property allocated per cell (the previous
+// cell value factories), the cached Student properties, and the store-backed list the table shows,
+// which reuses the views of recently shown rows.
+// First visit (scrolling once through a large roster nobody has looked at yet): plain Students create
+// and keep their properties, the store-backed list only keeps those of its window of recent rows.
+// Those two also report retainedBytesPerRow, the heap still reachable from the roster after one full scroll.
+// Run with the GC profiler (the default in BenchmarkRunner) and compare gc.alloc.rate.norm.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CellValueBenchmarks {
+
+    // Roughly one screen of rows
+    private static final int VISIBLE_ROWS = 40;
+    private static final int ROSTER_ROWS = 100_000;
+    private static final int COLUMNS = 6;
+
+    private List<Student> students;
+    private List<Student> storeRows;
+    // Keeps the JIT from dropping the visit in retainedBytesPerRow
+    private static volatile int sink;
+
+    @Setup(Level.Trial)
+    public void createRows() {
+        students = roster(VISIBLE_ROWS);
+        storeRows = StudentStore.of(students).observableRows();
+    }
+
+    // A large roster whose rows have never been shown
+    @State(Scope.Thread)
+    public static class FreshRoster {
+
+        List<Student> students;
+        List<Student> storeRows;
+        long studentsRetained;
+        long storeRowsRetained;
+
+        @Setup(Level.Trial)
+        public void measureRetained() {
+            studentsRetained = retainedBytesPerRow(roster(ROSTER_ROWS));
+            storeRowsRetained = retainedBytesPerRow(StudentStore.of(roster(ROSTER_ROWS)).observableRows());
+            storeRows = StudentStore.of(roster(ROSTER_ROWS)).observableRows();
+        }
+
+        // One store-backed list serves every invocation: a full scroll cycles its window many times over,
+        // so each invocation sees rows whose views are gone. Plain Students keep their properties and
+        // must be new each time.
+        @Setup(Level.Invocation)
+        public void freshStudents() {
+            students = roster(ROSTER_ROWS);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Retained {
+        public long retainedBytesPerRow;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VISIBLE_ROWS * COLUMNS)
+    public void newPropertyPerCell(Blackhole bh) {
+        for (Student s : students) {
+            bh.consume(value(new SimpleIntegerProperty(s.getId()).asObject()));
+            bh.consume(value(new SimpleStringProperty(s.getName())));
+            bh.consume(value(new SimpleStringProperty(s.getSurname())));
+            bh.consume(value(new SimpleStringProperty(s.getFaculty())));
+            bh.consume(value(new SimpleStringProperty(s.getDepartment())));
+            bh.consume(value(new SimpleStringProperty(s.getGroup())));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VISIBLE_ROWS * COLUMNS)
+    public void cachedProperties(Blackhole bh) {
+        visit(students, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VISIBLE_ROWS * COLUMNS)
+    public void storeRowViews(Blackhole bh) {
+        visit(storeRows, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROSTER_ROWS * COLUMNS)
+    public void firstVisitStudents(FreshRoster roster, Retained retained, Blackhole bh) {
+        visit(roster.students, bh);
+        retained.retainedBytesPerRow = roster.studentsRetained;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROSTER_ROWS * COLUMNS)
+    public void firstVisitStoreRows(FreshRoster roster, Retained retained, Blackhole bh) {
+        visit(roster.storeRows, bh);
+        retained.retainedBytesPerRow = roster.storeRowsRetained;
+    }
+
+    private static void visit(List<Student> rows, Blackhole bh) {
+        for (Student s : rows) {
+            bh.consume(value(s.idProperty()));
+            bh.consume(value(s.nameProperty()));
+            bh.consume(value(s.surnameProperty()));
+            bh.consume(value(s.facultyProperty()));
+            bh.consume(value(s.departmentProperty()));
+            bh.consume(value(s.groupProperty()));
+        }
+    }
+
+    private static Object value(ObservableValue<?> observable) {
+        return observable.getValue();
+    }
+
+    private static List<Student> roster(int size) {
+        List<Student> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(new Student(i, "Name" + i, "Surname" + i, "Faculty", "Department", "G-" + (i % 5)));
+        }
+        return rows;
+    }
+
+    // Heap growth caused by one full scroll, measured after a full GC while the roster is still reachable
+    private static long retainedBytesPerRow(List<Student> rows) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedAfterGc(memory);
+        int checksum = 0;
+        for (Student s : rows) {
+            checksum += value(s.idProperty()).hashCode() + value(s.nameProperty()).hashCode()
+                    + value(s.surnameProperty()).hashCode() + value(s.facultyProperty()).hashCode()
+                    + value(s.departmentProperty()).hashCode() + value(s.groupProperty()).hashCode();
+        }
+        long after = usedAfterGc(memory);
+        sink = checksum;
+        Reference.reachabilityFence(rows);
+        return Math.max(0, after - before) / rows.size();
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
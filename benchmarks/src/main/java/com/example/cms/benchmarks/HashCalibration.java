@@ -0,0 +1,31 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.security.PasswordHasher;
+
+import java.time.Duration;
+
+// Suggests -Dcms.auth.pbkdf2Iterations for a target time per login on this machine:
+//   java -cp target/benchmarks.jar com.example.cms.benchmarks.HashCalibration [target millis, default 250]
+// and checks the suggestion by timing a few real hashes through PasswordHasher.
+public class HashCalibration {
+
+    private static final int CHECKS = 5;
+
+    public static void main(String[] args) {
+        Duration target = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[0]) : 250);
+        int iterations = PasswordHasher.calibrate(target);
+
+        try (PasswordHasher hasher = new PasswordHasher(iterations, 1, PasswordHasher.DEFAULT_MAX_QUEUED)) {
+            hasher.hash("warm-up").join();
+            long total = 0;
+            for (int i = 0; i < CHECKS; i++) {
+                long start = System.nanoTime();
+                hasher.hash("calibration-" + i).join();
+                total += System.nanoTime() - start;
+            }
+            System.out.printf("Target %d ms: %d iterations, measured %.1f ms per hash (default is %d iterations)%n",
+                    target.toMillis(), iterations, total / 1e6 / CHECKS, PasswordHasher.DEFAULT_ITERATIONS);
+            System.out.printf("Run the application with -Dcms.auth.pbkdf2Iterations=%d%n", iterations);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.database.Database;
+import com.example.cms.database.PageKey;
+import com.example.cms.database.StudentSort;
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.diagnostics.LatencyHistogram;
+import com.example.cms.diagnostics.LatencyStats;
+import com.example.cms.models.Student;
+import com.example.cms.security.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop load test of the Database layer: N simulated users, each on its own virtual thread,
+// run a weighted mix of operations against a fresh database file for a fixed time and the run reports
+// throughput, latency percentiles and failures per operation, SQLITE_BUSY / SQLITE_LOCKED counts and
+// where time went waiting (connection checkout, write queue).
+//
+//   java -cp target/benchmarks.jar com.example.cms.benchmarks.LoadGenerator \
+//       --users 200 --duration 60 --warmup 10 --students 1000 \
+//       --mix register=1,login=4,list=25,search=35,add=15,update=15,delete=5 [--think 0] [--db target/load-db/load.db]
+//
+// Pool, writer and cache settings are the usual -Dcms.* properties. PBKDF2 runs at the minimum
+// iteration count unless -Dcms.auth.pbkdf2Iterations is given, so logins do not drown out the database.
+public class LoadGenerator {
+
+    private static final String PASSWORD = "load-password";
+    private static final int PAGE_SIZE = 100;
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    enum Operation {
+        REGISTER, LOGIN, LIST, SEARCH, ADD, UPDATE, DELETE
+    }
+
+    private record Options(int users, int durationSeconds, int warmupSeconds, int students,
+                           Map<Operation, Integer> mix, long thinkMillis, Path db, boolean keep) {
+
+        private static final String DEFAULT_MIX = "register=1,login=4,list=25,search=35,add=15,update=15,delete=5";
+
+        static Options parse(String[] args) {
+            int users = 50;
+            int duration = 30;
+            int warmup = 5;
+            int students = 1000;
+            String mix = DEFAULT_MIX;
+            long think = 0;
+            Path db = Path.of("target", "load-db", "load.db");
+            boolean keep = false;
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("--keep")) {
+                    keep = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                String value = args[++i];
+                switch (name) {
+                    case "--users" -> users = Integer.parseInt(value);
+                    case "--duration" -> duration = Integer.parseInt(value);
+                    case "--warmup" -> warmup = Integer.parseInt(value);
+                    case "--students" -> students = Integer.parseInt(value);
+                    case "--mix" -> mix = value;
+                    case "--think" -> think = Long.parseLong(value);
+                    case "--db" -> db = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (users < 1 || duration < 1 || warmup < 0 || students < 1 || think < 0) {
+                throw new IllegalArgumentException("users, duration and students must be positive; warmup and think not negative");
+            }
+            return new Options(users, duration, warmup, students, parseMix(mix), think, db.toAbsolutePath(), keep);
+        }
+
+        private static Map<Operation, Integer> parseMix(String mix) {
+            Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.trim().split("=");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Mix entries look like search=35, got '" + entry + "'");
+                }
+                int weight = Integer.parseInt(parts[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Negative weight for " + parts[0]);
+                }
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+            if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+                throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+            }
+            return weights;
+        }
+    }
+
+    // Outcome counters of one operation; latency is recorded for successes and failures alike
+    private static final class Tally {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder busy = new LongAdder();
+        final LongAdder locked = new LongAdder();
+        final LongAdder transientErrors = new LongAdder();
+    }
+
+    private final Options options;
+    private final Operation[] table;
+    private final Map<Operation, Tally> tallies = new EnumMap<>(Operation.class);
+    private final AtomicInteger registered = new AtomicInteger();
+    private volatile boolean measuring = false;
+    private volatile boolean running = true;
+
+    private LoadGenerator(Options options) {
+        this.options = options;
+        List<Operation> weighted = new ArrayList<>();
+        options.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        this.table = weighted.toArray(Operation[]::new);
+        for (Operation operation : Operation.values()) {
+            tallies.put(operation, new Tally());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Files.createDirectories(options.db().getParent());
+        deleteDatabase(options.db());
+        // Must be set before Database is first touched: its pool, caches and hasher are configured statically
+        System.setProperty("cms.db.url", "jdbc:sqlite:" + options.db());
+        if (System.getProperty("cms.auth.pbkdf2Iterations") == null) {
+            System.setProperty("cms.auth.pbkdf2Iterations", String.valueOf(PasswordHasher.MIN_ITERATIONS));
+        }
+
+        LoadGenerator generator = new LoadGenerator(options);
+        try {
+            generator.run();
+        } finally {
+            Database.shutdown();
+            if (!options.keep()) {
+                deleteDatabase(options.db());
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        Database.createTables();
+        System.out.printf("Seeding %d users with %d students each into %s%n", options.users(), options.students(), options.db());
+        List<SimulatedUser> users = new ArrayList<>(options.users());
+        for (int i = 0; i < options.users(); i++) {
+            String username = "load-user-" + i;
+            Database.registerUser(username, PASSWORD);
+            int userId = Database.getUserId(username);
+            SeededDatabase.seed(userId, options.students());
+            users.add(new SimulatedUser(username, userId, options.students()));
+        }
+
+        System.out.printf("Running %s for %ds after %ds warm-up (think time %d ms)%n",
+                options.mix(), options.durationSeconds(), options.warmupSeconds(), options.thinkMillis());
+        long measuredNanos;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SimulatedUser user : users) {
+                threads.submit(user::run);
+            }
+            TimeUnit.SECONDS.sleep(options.warmupSeconds());
+            Diagnostics.reset();
+            measuring = true;
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(options.durationSeconds());
+            measuring = false;
+            measuredNanos = System.nanoTime() - start;
+            running = false;
+        }
+        report(measuredNanos);
+    }
+
+    private final class SimulatedUser {
+        private final String username;
+        private final int userId;
+        private int nextStudentId;
+
+        private SimulatedUser(String username, int userId, int seeded) {
+            this.username = username;
+            this.userId = userId;
+            this.nextStudentId = seeded + 1;
+        }
+
+        private void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running) {
+                Operation operation = table[random.nextInt(table.length)];
+                long start = System.nanoTime();
+                Throwable failure = null;
+                try {
+                    execute(operation, random);
+                } catch (SQLException | RuntimeException e) {
+                    failure = e;
+                }
+                if (measuring) {
+                    record(operation, System.nanoTime() - start, failure);
+                }
+                if (options.thinkMillis() > 0) {
+                    try {
+                        Thread.sleep(options.thinkMillis());
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void execute(Operation operation, ThreadLocalRandom random) throws SQLException {
+            switch (operation) {
+                case REGISTER -> Database.registerUser("load-new-" + registered.incrementAndGet(), PASSWORD);
+                case LOGIN -> {
+                    if (Database.authenticateUser(username, PASSWORD) != userId) {
+                        throw new IllegalStateException("Login of " + username + " failed");
+                    }
+                }
+                case LIST -> {
+                    int from = random.nextInt(nextStudentId);
+                    Database.getStudentsPageForUser(userId, StudentSort.ID, true, new PageKey(from, from), PAGE_SIZE);
+                }
+                case SEARCH -> {
+                    String name = SeededDatabase.FIRST_NAMES[random.nextInt(SeededDatabase.FIRST_NAMES.length)];
+                    Database.searchStudentsForUser(name.substring(0, 1 + random.nextInt(name.length())), userId);
+                }
+                case ADD -> Database.addStudentForUser(newStudent(nextStudentId++, random), userId);
+                case UPDATE -> Database.updateStudentForUser(newStudent(1 + random.nextInt(nextStudentId - 1), random), userId);
+                // Ids may already be gone; deleting nothing still takes a write
+                case DELETE -> Database.deleteStudentForUser(1 + random.nextInt(nextStudentId - 1), userId);
+            }
+        }
+    }
+
+    private static Student newStudent(int id, ThreadLocalRandom random) {
+        return new Student(id,
+                SeededDatabase.FIRST_NAMES[random.nextInt(SeededDatabase.FIRST_NAMES.length)],
+                SeededDatabase.SURNAMES[random.nextInt(SeededDatabase.SURNAMES.length)] + random.nextInt(1000),
+                SeededDatabase.FACULTIES[random.nextInt(SeededDatabase.FACULTIES.length)],
+                "Department " + random.nextInt(40),
+                "G-" + random.nextInt(300));
+    }
+
+    private void record(Operation operation, long nanos, Throwable failure) {
+        Tally tally = tallies.get(operation);
+        tally.latency.record(nanos);
+        if (failure == null) {
+            tally.ok.increment();
+            return;
+        }
+        tally.failed.increment();
+        switch (sqliteCode(failure)) {
+            case SQLITE_BUSY -> tally.busy.increment();
+            case SQLITE_LOCKED -> tally.locked.increment();
+            default -> {
+                if (failure instanceof SQLTransientException) {
+                    tally.transientErrors.increment();
+                } else if (tally.failed.sum() <= 3) {
+                    System.err.println(operation + " failed: " + failure);
+                }
+            }
+        }
+    }
+
+    // Primary SQLite result code anywhere in the cause chain (sqlite-jdbc reports it as the error code), or 0
+    private static int sqliteCode(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SQLException e) {
+                int code = e.getErrorCode() & 0xff;
+                if (code == SQLITE_BUSY || code == SQLITE_LOCKED) {
+                    return code;
+                }
+                String message = String.valueOf(e.getMessage());
+                if (message.contains("SQLITE_BUSY")) {
+                    return SQLITE_BUSY;
+                }
+                if (message.contains("SQLITE_LOCKED")) {
+                    return SQLITE_LOCKED;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void report(long measuredNanos) {
+        double seconds = measuredNanos / 1e9;
+        System.out.printf("%n%-10s %10s %10s %8s %8s %8s %9s %10s %10s %10s %10s%n", "operation", "ops/s", "ok",
+                "failed", "busy", "locked", "transient", "mean ms", "p50 ms", "p99 ms", "p999 ms");
+        long ok = 0;
+        long failed = 0;
+        long busy = 0;
+        long locked = 0;
+        for (Operation operation : Operation.values()) {
+            Tally tally = tallies.get(operation);
+            LatencyStats s = tally.latency.snapshot(operation.name().toLowerCase());
+            if (s.count() == 0) {
+                continue;
+            }
+            System.out.printf("%-10s %10.1f %10d %8d %8d %8d %9d %10.3f %10.3f %10.3f %10.3f%n", s.operation(),
+                    s.count() / seconds, tally.ok.sum(), tally.failed.sum(), tally.busy.sum(), tally.locked.sum(),
+                    tally.transientErrors.sum(), s.meanNanos() / 1e6, s.p50Nanos() / 1e6, s.p99Nanos() / 1e6, s.p999Nanos() / 1e6);
+            ok += tally.ok.sum();
+            failed += tally.failed.sum();
+            busy += tally.busy.sum();
+            locked += tally.locked.sum();
+        }
+        System.out.printf("%ntotal: %.1f ops/s over %.1fs, %d ok, %d failed, SQLITE_BUSY=%d, SQLITE_LOCKED=%d%n",
+                (ok + failed) / seconds, seconds, ok, failed, busy, locked);
+
+        // Lock waits: time spent queueing for a connection permit and for the single writer's transaction
+        System.out.println();
+        for (LatencyStats s : Diagnostics.snapshot()) {
+            if (s.operation().equals("db.connect") || s.operation().startsWith("db.write.")) {
+                System.out.println(s);
+            }
+        }
+        System.out.println(Database.getPoolStats());
+        System.out.println(Database.getWriteQueueStats());
+        System.out.println(Database.getExecutorStats());
+        System.out.println(Database.getHasherStats());
+    }
+
+    private static void deleteDatabase(Path db) throws IOException {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(db + suffix));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.security.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one password hash (registration) and one check (login) per PBKDF2 iteration count, as seen
+// by the caller, i.e. including the hand-off to the hashing pool. loginStorm runs checks from more
+// threads than the pool has, so its latency shows the queueing. See HashCalibration for picking
+// -Dcms.auth.pbkdf2Iterations from a target latency.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashBenchmarks {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"100000", "310000", "600000"})
+    public int iterations;
+
+    private PasswordHasher hasher;
+    private String stored;
+
+    @Setup(Level.Trial)
+    public void createHasher() {
+        hasher = new PasswordHasher(iterations, Runtime.getRuntime().availableProcessors(), PasswordHasher.DEFAULT_MAX_QUEUED);
+        stored = hasher.hash(PASSWORD).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeHasher() {
+        hasher.close();
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash(PASSWORD).join();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(PASSWORD, stored).join();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean loginStorm() {
+        return hasher.verify(PASSWORD, stored).join();
+    }
+}
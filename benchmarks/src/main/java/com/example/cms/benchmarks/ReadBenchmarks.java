@@ -0,0 +1,55 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.database.Database;
+import com.example.cms.models.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Search, full roster load and login validation. SampleTime reports the latency distribution
+// (p50/p90/p99/p99.9) next to the mean; the runner adds the GC profiler for allocation rates.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReadBenchmarks {
+
+    // Three or more characters go through the FTS index, shorter ones fall back to a scan
+    private static final String[] FTS_QUERIES = {"ann", "smith1", "engineering", "g-12", "petrov*"};
+    private static final String[] SHORT_QUERIES = {"an", "g-", "12"};
+
+    private int next = 0;
+
+    @Benchmark
+    public List<Student> searchFts(SeededDatabase db) throws SQLException {
+        return Database.searchStudentsForUser(FTS_QUERIES[next++ % FTS_QUERIES.length], db.userId);
+    }
+
+    @Benchmark
+    public List<Student> searchShortQuery(SeededDatabase db) throws SQLException {
+        return Database.searchStudentsForUser(SHORT_QUERIES[next++ % SHORT_QUERIES.length], db.userId);
+    }
+
+    @Benchmark
+    public List<Student> fullLoad(SeededDatabase db) throws SQLException {
+        return Database.getAllStudentsForUser(db.userId);
+    }
+
+    // Takes the database state only so that it is opened (and seeded) before Database is used
+    @Benchmark
+    public int loginValidation(SeededDatabase db) throws SQLException {
+        return Database.authenticateUser(SeededDatabase.USERNAME, SeededDatabase.PASSWORD);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.database.Database;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+// One benchmark user with a roster of `students` rows. Each fork works on its own copy of a seeded
+// template database (target/bench-db/students-<n>.db), which is created on first use and reused by
+// later runs, so writes in one trial never leak into the next.
+// The roster and credential caches are disabled unless -Dcms.cache.maxEntries / -Dcms.auth.cacheSize
+// are given, so reads measure SQLite.
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    public static final String USERNAME = "bench";
+    public static final String PASSWORD = "bench-password";
+
+    static final String[] FIRST_NAMES = {"Anna", "Boris", "Chen", "Dana", "Elif", "Farid", "Greta", "Hugo",
+            "Ines", "Jamal", "Kira", "Lars", "Maya", "Nikolai", "Olga", "Pavel", "Qiang", "Rosa", "Samir", "Tara"};
+    static final String[] SURNAMES = {"Smith", "Ivanova", "Kim", "Garcia", "Nowak", "Haddad", "Larsen",
+            "Okafor", "Petrov", "Rossi", "Sato", "Torres", "Umarov", "Varga", "Weber", "Yilmaz", "Zhang"};
+    static final String[] FACULTIES = {"Engineering", "Science", "Arts", "Law", "Medicine", "Business",
+            "Education", "Architecture"};
+
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int students;
+
+    public int userId;
+    private Path workingCopy;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException, SQLException {
+        Path dir = Path.of(System.getProperty("cms.bench.dir", "target/bench-db")).toAbsolutePath();
+        Files.createDirectories(dir);
+        Path template = dir.resolve("students-" + students + ".db");
+        workingCopy = dir.resolve("run-" + students + "-" + ProcessHandle.current().pid() + ".db");
+
+        boolean seeded = Files.exists(template);
+        if (seeded) {
+            Files.copy(template, workingCopy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Must be set before Database is first touched: its pool and cache are configured statically
+        System.setProperty("cms.db.url", "jdbc:sqlite:" + workingCopy);
+        if (System.getProperty("cms.cache.maxEntries") == null) {
+            System.setProperty("cms.cache.maxEntries", "0");
+        }
+        if (System.getProperty("cms.auth.cacheSize") == null) {
+            System.setProperty("cms.auth.cacheSize", "0");
+        }
+
+        Database.createTables();
+        if (!seeded) {
+            Database.registerUser(USERNAME, PASSWORD);
+            seed(Database.getUserId(USERNAME), students);
+            // Own connection: VACUUM refuses to run while the pool's cached statements are open
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + workingCopy);
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("VACUUM INTO '" + template.toString().replace("'", "''") + "'");
+            }
+        }
+        userId = Database.getUserId(USERNAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        Database.shutdown();
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(workingCopy + suffix));
+        }
+    }
+
+    // Deterministic roster with student ids 1..count
+    static void seed(int userId, int count) throws SQLException {
+        String sql = "INSERT INTO students(student_id, name, surname, faculty, department, student_group, user_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        Random random = new Random(42);
+        try (Connection conn = Database.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int id = 1; id <= count; id++) {
+                pstmt.setInt(1, id);
+                pstmt.setString(2, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+                pstmt.setString(3, SURNAMES[random.nextInt(SURNAMES.length)] + random.nextInt(1000));
+                pstmt.setString(4, FACULTIES[random.nextInt(FACULTIES.length)]);
+                pstmt.setString(5, "Department " + random.nextInt(40));
+                pstmt.setString(6, "G-" + random.nextInt(300));
+                pstmt.setInt(7, userId);
+                pstmt.addBatch();
+                if (id % SEED_CHUNK == 0 || id == count) {
+                    pstmt.executeBatch();
+                    conn.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cms.benchmarks;
+
+import com.example.cms.database.Database;
+import com.example.cms.database.ImportReport;
+import com.example.cms.database.StudentImporter;
+import com.example.cms.models.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Single insert, bulk insert and update. The synchronous Database methods wait for the group
+// commit, so their latency includes the write-behind window (-Dcms.db.writeWindowMicros).
+// New rows get ids above the seeded range, so inserts never hit the duplicate path.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WriteBenchmarks {
+
+    @Param({"1000"})
+    public int bulkRows;
+
+    private final Random random = new Random(7);
+    private int nextId = -1;
+
+    @Benchmark
+    public void singleInsert(SeededDatabase db) throws SQLException {
+        Database.addStudentForUser(newStudent(db), db.userId);
+    }
+
+    @Benchmark
+    public ImportReport bulkInsert(SeededDatabase db) throws IOException, SQLException {
+        StringBuilder csv = new StringBuilder(bulkRows * 48);
+        for (int i = 0; i < bulkRows; i++) {
+            Student s = newStudent(db);
+            csv.append(s.getId()).append(',').append(s.getName()).append(',').append(s.getSurname()).append(',')
+                    .append(s.getFaculty()).append(',').append(s.getDepartment()).append(',').append(s.getGroup()).append('\n');
+        }
+        return new StudentImporter(db.userId, StudentImporter.DEFAULT_CHUNK_SIZE, null)
+                .importFrom(new StringReader(csv.toString()), ',');
+    }
+
+    @Benchmark
+    public int update(SeededDatabase db) throws SQLException {
+        int id = 1 + random.nextInt(db.students);
+        Student s = new Student(id, SeededDatabase.FIRST_NAMES[random.nextInt(SeededDatabase.FIRST_NAMES.length)],
+                "Updated" + random.nextInt(1000), SeededDatabase.FACULTIES[random.nextInt(SeededDatabase.FACULTIES.length)],
+                "Department " + random.nextInt(40), "G-" + random.nextInt(300));
+        return Database.updateStudentForUser(s, db.userId);
+    }
+
+    private Student newStudent(SeededDatabase db) {
+        if (nextId < 0) {
+            nextId = db.students + 1;
+        }
+        return new Student(nextId++, SeededDatabase.FIRST_NAMES[random.nextInt(SeededDatabase.FIRST_NAMES.length)],
+                "New" + random.nextInt(1000), SeededDatabase.FACULTIES[random.nextInt(SeededDatabase.FACULTIES.length)],
+                "Department " + random.nextInt(40), "G-" + random.nextInt(300));
+    }
+}
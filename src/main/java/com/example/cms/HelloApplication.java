@@ -6,6 +6,7 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import com.example.cms.database.Database;
+import com.example.cms.diagnostics.Diagnostics;
 
 public class HelloApplication extends Application {
 
@@ -32,6 +33,12 @@ public class HelloApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        Database.shutdown();
+        Diagnostics.dumpIfRequested();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -1,33 +1,59 @@
 package com.example.cms.controllers;
 
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 import com.example.cms.models.Student;
 import com.example.cms.database.Database;
+import com.example.cms.database.DatabaseExecutor;
+import com.example.cms.database.ExportReport;
+import com.example.cms.database.FacetCounts;
+import com.example.cms.database.ImportReport;
+import com.example.cms.database.QueryHandle;
+import com.example.cms.database.StudentExporter;
+import com.example.cms.database.StudentImporter;
+import com.example.cms.database.StudentQuery;
+import com.example.cms.database.StudentSort;
+import com.example.cms.diagnostics.Diagnostics;
 import com.example.cms.HelloApplication;
 import com.example.cms.models.Session;
+import com.example.cms.models.StudentStore;
+import com.example.cms.search.StudentSearchIndex;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
 
 public class CourseController implements Initializable {
 
     private int userId;
-    private Timer searchTimer;
     private boolean isEditMode = false;
     private Student editingStudent = null;
-    private ExecutorService executorService;
+    // Roster loads and searches both fill the table: starting one cancels whichever is still running
+    private final DatabaseExecutor.Latest tableQuery = Database.executor().latest();
+    private final SearchPipeline searchPipeline = new SearchPipeline(tableQuery, SEARCH_DEBOUNCE_MILLIS,
+            this::findStudents, this::searchResultsUpdate, this::showSearchError);
+    private final StudentSearchIndex searchIndex = new StudentSearchIndex();
+    private volatile boolean searchIndexReady = false;
+    private volatile RosterSubscriber rosterSubscriber;
 
     @FXML private TableView<Student> studentsTable;
     @FXML private TableColumn<Student, Integer> colId;
@@ -49,17 +75,23 @@ public class CourseController implements Initializable {
     @FXML private Button actionButton;
     @FXML private Button cancelButton;
     @FXML private ProgressIndicator loadingIndicator;
+    @FXML private Label facetSummary;
+
+    // Breakdown of the rows currently in the table, adjusted in place by the optimistic edits
+    private FacetCounts facets = FacetCounts.EMPTY;
 
     private static final int MAX_FIELD_LENGTH = 255;
+    // Rosters larger than this are paged from SQLite instead of being loaded in full
+    private static final int PAGED_ROSTER_THRESHOLD = 50_000;
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 25;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_IMPORT_ERRORS = 10;
+    private static final int FACET_VALUES_SHOWN = 3;
+    private static final long SEARCH_DEBOUNCE_MILLIS = 300;
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        executorService = Executors.newSingleThreadExecutor(r -> {
-            Thread thread = new Thread(r);
-            thread.setDaemon(true);
-            return thread;
-        });
-
         setupColumns();
         studentsTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         studentsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
@@ -73,6 +105,15 @@ public class CourseController implements Initializable {
         colName.setSortable(true);
         colSurname.setSortable(true);
         studentsTable.getSortOrder().add(colId);
+        studentsTable.setSortPolicy(table -> {
+            if (table.getItems() instanceof PagedStudentList paged) {
+                // Paged rosters are sorted by SQLite, not in memory
+                TableColumn<Student, ?> column = table.getSortOrder().isEmpty() ? null : table.getSortOrder().get(0);
+                paged.setSort(sortFor(column), column == null || column.getSortType() == TableColumn.SortType.ASCENDING);
+                return true;
+            }
+            return TableView.DEFAULT_SORT_POLICY.call(table);
+        });
 
         if (loadingIndicator != null) {
             loadingIndicator.setVisible(false);
@@ -96,28 +137,63 @@ public class CourseController implements Initializable {
 
     public void setUser(int userId) {
         this.userId = userId;
-        executorService.submit(() -> {
+        loadInBackground();
+    }
+
+    private void loadInBackground() {
+        searchPipeline.cancel();
+        searchPipeline.invalidate();
+        tableQuery.submit(() -> {
             try {
                 Platform.runLater(() -> showLoading(true));
                 loadStudents();
             } catch (SQLException e) {
-                Platform.runLater(() -> showError("Database Error", e.getMessage()));
+                if (!superseded()) {
+                    Platform.runLater(() -> showError("Database Error", e.getMessage()));
+                }
             } finally {
                 Platform.runLater(() -> showLoading(false));
             }
         });
     }
 
+    // A task cancelled by a newer load or search is interrupted; it must not touch the table any more
+    private static boolean superseded() {
+        return Thread.currentThread().isInterrupted();
+    }
+
     @FXML
     protected void loadStudents() throws SQLException {
-        ObservableList<Student> list = Database.getAllStudentsForUser(userId);
-        Platform.runLater(() -> {
-            studentsTable.setItems(list);
-            studentsTable.sort();
-            if (list.isEmpty()) {
-                clearForm();
+        int total = Database.countStudentsForUser(userId);
+        if (total > PAGED_ROSTER_THRESHOLD) {
+            // Too large to hold in memory: page it and let searches go to the FTS index
+            searchIndexReady = false;
+            searchIndex.rebuild(List.of());
+            if (rosterSubscriber != null) {
+                rosterSubscriber.cancel();
+                rosterSubscriber = null;
             }
-        });
+            FacetCounts counts = Database.getFacetCountsForUser(userId);
+            Diagnostics.runLater("roster.paged", () -> {
+                studentsTable.setItems(new PagedStudentList(userId, total, PAGE_SIZE, MAX_CACHED_PAGES,
+                        Database.executor(), e -> showError("Database Error", e.getMessage())));
+                studentsTable.sort();
+                showFacets(counts);
+            });
+            return;
+        }
+
+        // Stream the roster so the first rows show up before the whole result has been read
+        ObservableList<Student> list = FXCollections.observableArrayList();
+        RosterSubscriber subscriber = new RosterSubscriber(list);
+        RosterSubscriber previous = rosterSubscriber;
+        rosterSubscriber = subscriber;
+        if (previous != null) {
+            previous.cancel();
+        }
+        searchIndexReady = false;
+        Platform.runLater(() -> studentsTable.setItems(list));
+        Database.publishStudentsForUser(userId, Database.executor()).subscribe(subscriber);
     }
 
     // ИСПРАВЛЕНО: Этот метод теперь обрабатывает оба режима
@@ -137,30 +213,29 @@ public class CourseController implements Initializable {
         Student student = getFormData();
         if (student == null) return;
 
-        showLoading(true);
-        executorService.submit(() -> {
-            try {
-                Database.addStudentForUser(student, userId);
-                Platform.runLater(() -> {
-                    showInfo("Success", "Student added successfully");
-                    try {
-                        reload();
-                    } catch (SQLException e) {
-                        showError("Database Error", e.getMessage());
-                    }
-                });
-            } catch (SQLException e) {
-                Platform.runLater(() -> {
-                    if (e.getMessage().contains("already exists")) {
-                        showError("Duplicate ID", e.getMessage());
-                    } else {
-                        showError("Database Error", e.getMessage());
-                    }
-                });
-            } finally {
-                Platform.runLater(() -> showLoading(false));
+        if (searchIndexReady && searchIndex.contains(student.getId())) {
+            showError("Duplicate ID", "Student with ID " + student.getId() + " already exists");
+            return;
+        }
+
+        // Show the row right away and take it back out if the insert is rejected
+        applyInsert(student);
+        clearForm();
+        Database.addStudentForUserAsync(student, userId).whenComplete((inserted, error) -> Diagnostics.runLater("student.add", () -> {
+            if (error == null) {
+                refreshIfPaged();
+                showInfo("Success", "Student added successfully");
+                return;
             }
-        });
+            undoInsert(student);
+            fillForm(student);
+            String message = errorMessage(error);
+            if (message.contains("already exists")) {
+                showError("Duplicate ID", message);
+            } else {
+                showError("Database Error", message);
+            }
+        }));
     }
 
     @FXML
@@ -172,28 +247,21 @@ public class CourseController implements Initializable {
         }
 
         if (confirmAction("Delete Student", "Are you sure you want to delete student: " + selected.getName() + " " + selected.getSurname() + "?")) {
-            showLoading(true);
-            executorService.submit(() -> {
-                try {
-                    int rowsAffected = Database.deleteStudentForUser(selected.getId(), userId);
-                    Platform.runLater(() -> {
-                        if (rowsAffected > 0) {
-                            showInfo("Deleted", "Student removed successfully");
-                            try {
-                                reload();
-                            } catch (SQLException e) {
-                                showError("Database Error", e.getMessage());
-                            }
-                        } else {
-                            showWarning("Not Found", "Student not found or already deleted");
-                        }
-                    });
-                } catch (SQLException e) {
-                    Platform.runLater(() -> showError("Database Error", e.getMessage()));
-                } finally {
-                    Platform.runLater(() -> showLoading(false));
+            applyDelete(selected);
+            clearForm();
+            Database.deleteStudentForUserAsync(selected.getId(), userId).whenComplete((rowsAffected, error) -> Diagnostics.runLater("student.delete", () -> {
+                if (error != null) {
+                    applyInsert(selected);
+                    showError("Database Error", errorMessage(error));
+                    return;
                 }
-            });
+                refreshIfPaged();
+                if (rowsAffected > 0) {
+                    showInfo("Deleted", "Student removed successfully");
+                } else {
+                    showWarning("Not Found", "Student not found or already deleted");
+                }
+            }));
         }
     }
 
@@ -238,29 +306,25 @@ public class CourseController implements Initializable {
             return;
         }
 
-        showLoading(true);
-        executorService.submit(() -> {
-            try {
-                int rowsAffected = Database.updateStudentForUser(student, userId);
-                Platform.runLater(() -> {
-                    if (rowsAffected > 0) {
-                        showInfo("Updated", "Student updated successfully");
-                        exitEditMode();
-                        try {
-                            reload();
-                        } catch (SQLException e) {
-                            showError("Database Error", e.getMessage());
-                        }
-                    } else {
-                        showWarning("Not Found", "Student not found. It may have been deleted.");
-                    }
-                });
-            } catch (SQLException e) {
-                Platform.runLater(() -> showError("Database Error", e.getMessage()));
-            } finally {
-                Platform.runLater(() -> showLoading(false));
+        Student original = editingStudent;
+        applyReplace(original, student);
+        exitEditMode();
+        clearForm();
+        Database.updateStudentForUserAsync(student, userId).whenComplete((rowsAffected, error) -> Diagnostics.runLater("student.update", () -> {
+            if (error != null) {
+                applyReplace(student, original);
+                showError("Database Error", errorMessage(error));
+                return;
             }
-        });
+            refreshIfPaged();
+            if (rowsAffected > 0) {
+                showInfo("Updated", "Student updated successfully");
+            } else {
+                // Deleted elsewhere: drop the row instead of restoring it
+                applyDelete(student);
+                showWarning("Not Found", "Student not found. It may have been deleted.");
+            }
+        }));
     }
 
     @FXML
@@ -290,41 +354,150 @@ public class CourseController implements Initializable {
 
     @FXML
     protected void searchStudent() {
-        if (searchTimer != null) {
-            searchTimer.cancel();
+        String text = search.getText().trim();
+        if (text.isEmpty()) {
+            loadInBackground();
+            return;
         }
+        searchPipeline.submit(text);
+    }
 
-        searchTimer = new Timer(true);
-        searchTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                String text = search.getText().trim();
-                Platform.runLater(() -> showLoading(true));
+    // Field filters are pushed down to SQLite; for plain text the in-memory index answers once the
+    // roster is loaded, SQLite is only the cold path
+    private List<Student> findStudents(String text, QueryHandle handle) throws SQLException {
+        Platform.runLater(() -> showLoading(true));
+        if (StudentQuery.isStructured(text)) {
+            return Database.searchStudentsByQueryForUser(text, userId, handle);
+        }
+        if (searchIndexReady) {
+            return searchIndex.search(text);
+        }
+        return Database.searchStudentsForUser(text, userId, handle);
+    }
 
-                try {
-                    if (text.length() < 1) {
-                        loadStudents();
-                    } else {
-                        ObservableList<Student> results = Database.searchStudentsForUser(text, userId);
-                        Platform.runLater(() -> {
-                            studentsTable.setItems(results);
-                            studentsTable.sort();
-                        });
-                    }
-                } catch (SQLException e) {
-                    Platform.runLater(() -> showError("Database Error", e.getMessage()));
-                } finally {
-                    Platform.runLater(() -> showLoading(false));
-                }
+    private Runnable searchResultsUpdate(String text, List<Student> results) {
+        ObservableList<Student> items = FXCollections.observableArrayList(results);
+        FacetCounts counts = FacetCounts.of(results);
+        return () -> {
+            studentsTable.setItems(items);
+            studentsTable.sort();
+            showFacets(counts);
+            showLoading(false);
+        };
+    }
+
+    private void showSearchError(String text, Exception e) {
+        showLoading(false);
+        if (e instanceof IllegalArgumentException) {
+            showWarning("Invalid Search", e.getMessage());
+        } else if (e instanceof SQLException) {
+            showError("Database Error", e.getMessage());
+        } else {
+            showError("Search Error", e.toString());
+        }
+    }
+
+    @FXML
+    protected void importStudents() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Students");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV / TSV files", "*.csv", "*.tsv"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(HelloApplication.getPrimaryStage());
+        if (file == null) return;
+
+        showLoading(true);
+        Database.executor().submit(() -> {
+            try {
+                StudentImporter importer = new StudentImporter(userId, StudentImporter.DEFAULT_CHUNK_SIZE,
+                        progress -> Platform.runLater(() -> showProgress(progress.fraction())));
+                ImportReport report = importer.importFile(file.toPath());
+                Platform.runLater(() -> {
+                    showProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+                    showInfo("Import Finished", importSummary(report));
+                    // One refresh for the whole import instead of one per row
+                    reload();
+                });
+            } catch (IOException | SQLException e) {
+                Platform.runLater(() -> {
+                    showProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+                    showError("Import Failed", e.getMessage());
+                });
+            } finally {
+                Platform.runLater(() -> showLoading(false));
             }
-        }, 300);
+        });
+    }
+
+    @FXML
+    protected void exportStudents() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Students");
+        chooser.setInitialFileName("students.csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV (gzip)", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("JSON Lines (gzip)", "*.jsonl.gz"));
+        File file = chooser.showSaveDialog(HelloApplication.getPrimaryStage());
+        if (file == null) return;
+
+        showLoading(true);
+        Database.executor().submit(() -> {
+            try {
+                ExportReport report = new StudentExporter(userId, null).exportFile(file.toPath());
+                Platform.runLater(() -> showInfo("Export Finished", report.toString()));
+            } catch (IOException | SQLException e) {
+                Platform.runLater(() -> showError("Export Failed", e.getMessage()));
+            } finally {
+                Platform.runLater(() -> showLoading(false));
+            }
+        });
+    }
+
+    // Latency percentiles of every timed operation since startup (or the last reset), plus pool,
+    // executor, write queue and cache counters
+    @FXML
+    protected void showDiagnostics() {
+        TextArea text = new TextArea(Diagnostics.report() + "\n" + Database.getPoolStats() + "\n"
+                + Database.getExecutorStats() + "\n" + searchPipeline.getStats() + "\n"
+                + Database.getWriteQueueStats() + "\n" + Database.getRosterCacheStats() + "\n"
+                + Database.getCredentialCacheStats() + ", sessions=" + Session.store().size() + "\n"
+                + Database.getHasherStats());
+        text.setEditable(false);
+        text.setStyle("-fx-font-family: monospace; -fx-font-size: 12px;");
+        text.setPrefSize(860, 420);
+
+        ButtonType reset = new ButtonType("Reset", ButtonBar.ButtonData.LEFT);
+        Alert a = new Alert(Alert.AlertType.INFORMATION, null, reset, ButtonType.OK);
+        a.setTitle("Diagnostics");
+        a.setHeaderText(null);
+        a.getDialogPane().setContent(text);
+        a.setResizable(true);
+        if (a.showAndWait().filter(btn -> btn == reset).isPresent()) {
+            Diagnostics.reset();
+        }
+    }
+
+    private String importSummary(ImportReport report) {
+        StringBuilder sb = new StringBuilder(report.toString());
+        int shown = Math.min(report.errors().size(), MAX_REPORTED_IMPORT_ERRORS);
+        for (int i = 0; i < shown; i++) {
+            sb.append('\n').append(report.errors().get(i));
+        }
+        long hidden = report.duplicates() + report.failed() - shown;
+        if (hidden > 0) {
+            sb.append("\n... and ").append(hidden).append(" more");
+        }
+        return sb.toString();
     }
 
     @FXML
     protected void logout() {
         if (confirmAction("Logout", "Are you sure you want to logout?")) {
             cleanup();
-            Session.setCurrentUserId(-1);
+            Session.logout();
 
             Platform.runLater(() -> {
                 try {
@@ -340,22 +513,34 @@ public class CourseController implements Initializable {
     }
 
     public void cleanup() {
-        if (searchTimer != null) {
-            searchTimer.cancel();
-            searchTimer = null;
-        }
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+        searchPipeline.cancel();
+        tableQuery.cancel();
+        if (rosterSubscriber != null) {
+            rosterSubscriber.cancel();
         }
     }
 
+    // Rows of a paged roster are null until their page has been fetched.
+    // The factories hand out cached properties: a plain Student keeps its own, and the store-backed roster
+    // list reuses the views (and properties) of the rows on screen, so re-rendering a visible row
+    // allocates nothing. A row's first render creates its properties; search results served by the
+    // in-memory index are views that create them per render.
     private void setupColumns() {
-        colId.setCellValueFactory(param -> new javafx.beans.property.SimpleIntegerProperty(param.getValue().getId()).asObject());
-        colName.setCellValueFactory(param -> new javafx.beans.property.SimpleStringProperty(param.getValue().getName()));
-        colSurname.setCellValueFactory(param -> new javafx.beans.property.SimpleStringProperty(param.getValue().getSurname()));
-        colFaculty.setCellValueFactory(param -> new javafx.beans.property.SimpleStringProperty(param.getValue().getFaculty()));
-        colDepartment.setCellValueFactory(param -> new javafx.beans.property.SimpleStringProperty(param.getValue().getDepartment()));
-        colGroup.setCellValueFactory(param -> new javafx.beans.property.SimpleStringProperty(param.getValue().getGroup()));
+        colId.setCellValueFactory(param -> param.getValue() == null ? null : param.getValue().idProperty());
+        colName.setCellValueFactory(param -> param.getValue() == null ? null : param.getValue().nameProperty());
+        colSurname.setCellValueFactory(param -> param.getValue() == null ? null : param.getValue().surnameProperty());
+        colFaculty.setCellValueFactory(param -> param.getValue() == null ? null : param.getValue().facultyProperty());
+        colDepartment.setCellValueFactory(param -> param.getValue() == null ? null : param.getValue().departmentProperty());
+        colGroup.setCellValueFactory(param -> param.getValue() == null ? null : param.getValue().groupProperty());
+    }
+
+    private StudentSort sortFor(TableColumn<Student, ?> column) {
+        if (column == colName) return StudentSort.NAME;
+        if (column == colSurname) return StudentSort.SURNAME;
+        if (column == colFaculty) return StudentSort.FACULTY;
+        if (column == colDepartment) return StudentSort.DEPARTMENT;
+        if (column == colGroup) return StudentSort.GROUP;
+        return StudentSort.ID;
     }
 
     private void fillForm(Student s) {
@@ -419,6 +604,12 @@ public class CourseController implements Initializable {
         }
     }
 
+    private void showProgress(double progress) {
+        if (loadingIndicator != null) {
+            loadingIndicator.setProgress(progress);
+        }
+    }
+
     private boolean confirmAction(String title, String msg) {
         Alert a = new Alert(Alert.AlertType.CONFIRMATION, msg, ButtonType.YES, ButtonType.NO);
         a.setTitle(title);
@@ -426,6 +617,12 @@ public class CourseController implements Initializable {
         return a.showAndWait().filter(btn -> btn == ButtonType.YES).isPresent();
     }
 
+    // Futures from dependent stages wrap the original SQLException in a CompletionException
+    private static String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
     private void showError(String title, String msg) {
         showAlert(Alert.AlertType.ERROR, title, msg);
     }
@@ -445,8 +642,378 @@ public class CourseController implements Initializable {
         a.showAndWait();
     }
 
-    private void reload() throws SQLException {
+    // Appends streamed rows to the table in batches; the next batch is only requested
+    // once the previous one has been handed to the table, so SQLite never runs ahead of the UI.
+    // The table stays editable while streaming: edits made in the meantime are not in the streamed
+    // snapshot, so they are recorded by id and replayed onto it when the stream completes.
+    // A rejected insert is taken back out of the record, or, once replayed, swapped back for the
+    // snapshot row it displaced.
+    private final class RosterSubscriber implements Flow.Subscriber<Student> {
+
+        private final ObservableList<Student> target;
+        private List<Student> loaded = new ArrayList<>();
+        private List<Student> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled = false;
+        // Latest state of a student edited before completion (null if deleted) and the edit it replaced
+        private record Edit(Student student, Edit previous) {
+        }
+
+        // FX thread only
+        private final Map<Integer, Edit> edits = new LinkedHashMap<>();
+        // Added student -> the snapshot row with its id that the replay dropped for it
+        private final Map<Student, Student> displaced = new IdentityHashMap<>();
+        private boolean completed = false;
+
+        private RosterSubscriber(ObservableList<Student> target) {
+            this.target = target;
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        void recordRemoved(Student student) {
+            if (!completed) {
+                edits.put(student.getId(), new Edit(null, edits.get(student.getId())));
+            }
+        }
+
+        void recordAdded(Student student) {
+            if (!completed) {
+                edits.put(student.getId(), new Edit(student, edits.get(student.getId())));
+            }
+        }
+
+        // Forgets the insert of this very student. Returns the snapshot row it displaced if the insert
+        // has already been replayed, null otherwise.
+        Student undoAdded(Student student) {
+            if (completed) {
+                return displaced.remove(student);
+            }
+            Edit edit = edits.get(student.getId());
+            if (edit != null && edit.student() == student) {
+                if (edit.previous() == null) {
+                    edits.remove(student.getId());
+                } else {
+                    edits.put(student.getId(), edit.previous());
+                }
+            }
+            return null;
+        }
+
+        // The snapshot may or may not contain an edited student already, so each one is first
+        // removed by id and then added back in its latest state
+        private FacetCounts replayEdits(List<Student> rows, FacetCounts counts) {
+            if (edits.isEmpty()) {
+                return counts;
+            }
+            FacetCounts[] adjusted = {counts};
+            Map<Integer, Student> dropped = new HashMap<>();
+            rows.removeIf(student -> {
+                if (!edits.containsKey(student.getId())) {
+                    return false;
+                }
+                dropped.put(student.getId(), student);
+                adjusted[0] = adjusted[0].withRemoved(student);
+                return true;
+            });
+            for (Map.Entry<Integer, Edit> edit : edits.entrySet()) {
+                Student student = edit.getValue().student();
+                if (student == null) {
+                    searchIndex.remove(edit.getKey());
+                } else {
+                    searchIndex.add(student);
+                    rows.add(student);
+                    adjusted[0] = adjusted[0].withAdded(student);
+                    Student snapshotRow = dropped.get(edit.getKey());
+                    if (snapshotRow != null) {
+                        displaced.put(student, snapshotRow);
+                    }
+                }
+            }
+            edits.clear();
+            return adjusted[0];
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(STREAM_BATCH_SIZE);
+            }
+        }
+
+        @Override
+        public void onNext(Student student) {
+            loaded.add(student);
+            batch.add(student);
+            if (batch.size() == STREAM_BATCH_SIZE) {
+                List<Student> rows = batch;
+                batch = new ArrayList<>(STREAM_BATCH_SIZE);
+                Diagnostics.runLater("roster.batch", () -> {
+                    if (!cancelled) {
+                        target.addAll(rows);
+                        subscription.request(STREAM_BATCH_SIZE);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            Platform.runLater(() -> showError("Database Error", throwable.getMessage()));
+        }
+
+        @Override
+        public void onComplete() {
+            if (cancelled) {
+                return;
+            }
+            // The streamed Students are dropped for a compact columnar copy, built here and only read
+            // (never appended to) once it has been handed to the FX thread. The table gets a list of
+            // row numbers into it, so a row view only exists while something is looking at it.
+            StudentStore store = StudentStore.of(loaded);
+            loaded = null;
+            searchIndex.rebuild(store.rows());
+            searchIndexReady = true;
+            FacetCounts counts = FacetCounts.of(store.rows());
+            Diagnostics.runLater("roster.complete", () -> {
+                if (cancelled) {
+                    return;
+                }
+                completed = true;
+                ObservableList<Student> rows = store.observableRows();
+                FacetCounts replayed = replayEdits(rows, counts);
+                if (studentsTable.getItems() == target) {
+                    studentsTable.setItems(rows);
+                    studentsTable.sort();
+                }
+                target.clear();
+                showFacets(replayed);
+                if (rows.isEmpty()) {
+                    clearForm();
+                }
+            });
+        }
+    }
+
+    // Optimistic edits: the table and the search index change immediately, in O(log n) via binary search
+    // on the current sort order (a linear scan while no column is sorted), and are rolled back by the
+    // caller if the database rejects the change.
+    // Paged rosters are refreshed from SQLite after the commit instead.
+    private void applyInsert(Student student) {
+        searchPipeline.invalidate();
+        recordEdit(null, student);
+        if (searchIndexReady) {
+            searchIndex.add(student);
+        }
+        ObservableList<Student> items = studentsTable.getItems();
+        if (items instanceof PagedStudentList) {
+            return;
+        }
+        if (isSearchActive()) {
+            refilter();
+            return;
+        }
+        items.add(insertionPoint(items, student), student);
+        showFacets(facets.withAdded(student));
+    }
+
+    private void applyDelete(Student student) {
+        searchPipeline.invalidate();
+        recordEdit(student, null);
+        if (searchIndexReady) {
+            searchIndex.remove(student.getId());
+        }
+        ObservableList<Student> items = studentsTable.getItems();
+        if (items instanceof PagedStudentList) {
+            return;
+        }
+        int index = locate(items, student, false);
+        if (index >= 0) {
+            showFacets(facets.withRemoved(items.remove(index)));
+        }
+    }
+
+    // Rolls back applyInsert. Unlike a delete it only touches the inserted instance, so a rejected
+    // duplicate does not take the committed student with the same id along with it.
+    private void undoInsert(Student student) {
+        searchPipeline.invalidate();
+        RosterSubscriber streaming = rosterSubscriber;
+        Student displaced = streaming != null ? streaming.undoAdded(student) : null;
+        if (searchIndexReady && searchIndex.removeIfSame(student) && displaced != null) {
+            searchIndex.add(displaced);
+        }
+        ObservableList<Student> items = studentsTable.getItems();
+        if (items instanceof PagedStudentList) {
+            return;
+        }
+        if (isSearchActive()) {
+            refilter();
+            return;
+        }
+        int index = locate(items, student, true);
+        FacetCounts counts = facets;
+        if (index >= 0) {
+            counts = counts.withRemoved(items.remove(index));
+        }
+        if (displaced != null) {
+            items.add(insertionPoint(items, displaced), displaced);
+            counts = counts.withAdded(displaced);
+        }
+        showFacets(counts);
+    }
+
+    private void applyReplace(Student oldStudent, Student newStudent) {
+        searchPipeline.invalidate();
+        recordEdit(oldStudent, newStudent);
+        if (searchIndexReady) {
+            searchIndex.update(newStudent);
+        }
+        ObservableList<Student> items = studentsTable.getItems();
+        if (items instanceof PagedStudentList) {
+            return;
+        }
+        if (isSearchActive()) {
+            refilter();
+            return;
+        }
+        int index = locate(items, oldStudent, false);
+        FacetCounts counts = facets;
+        if (index >= 0) {
+            counts = counts.withRemoved(items.remove(index));
+        }
+        items.add(insertionPoint(items, newStudent), newStudent);
+        showFacets(counts.withAdded(newStudent));
+    }
+
+    // Lets a roster that is still streaming replay the edit onto its snapshot
+    private void recordEdit(Student removed, Student added) {
+        RosterSubscriber streaming = rosterSubscriber;
+        if (streaming == null) {
+            return;
+        }
+        if (removed != null) {
+            streaming.recordRemoved(removed);
+        }
+        if (added != null) {
+            streaming.recordAdded(added);
+        }
+    }
+
+    private boolean isSearchActive() {
+        return search != null && !search.getText().trim().isEmpty();
+    }
+
+    private void refilter() {
+        if (StudentQuery.isStructured(search.getText())) {
+            // Field filters are evaluated by SQLite; run the search again once the write has settled
+            searchStudent();
+            return;
+        }
+        if (searchIndexReady) {
+            List<Student> results = searchIndex.search(search.getText().trim());
+            studentsTable.setItems(FXCollections.observableArrayList(results));
+            studentsTable.sort();
+            showFacets(FacetCounts.of(results));
+        }
+    }
+
+    private void showFacets(FacetCounts counts) {
+        facets = counts;
+        if (facetSummary == null) {
+            return;
+        }
+        facetSummary.setText(counts.total() + " students  |  Faculty: " + topValues(counts.faculties())
+                + "  |  Department: " + topValues(counts.departments())
+                + "  |  Group: " + topValues(counts.groups()));
+        if (facetSummary.getTooltip() == null) {
+            facetSummary.setTooltip(new Tooltip());
+        }
+        facetSummary.getTooltip().setText("Faculty\n" + allValues(counts.faculties())
+                + "\nDepartment\n" + allValues(counts.departments())
+                + "\nGroup\n" + allValues(counts.groups()));
+    }
+
+    private static String topValues(Map<String, Long> counts) {
+        StringBuilder sb = new StringBuilder();
+        int shown = 0;
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            if (shown == FACET_VALUES_SHOWN) {
+                sb.append(", +").append(counts.size() - shown).append(" more");
+                break;
+            }
+            if (shown++ > 0) sb.append(", ");
+            sb.append(facetLabel(e.getKey())).append(" (").append(e.getValue()).append(')');
+        }
+        return shown == 0 ? "-" : sb.toString();
+    }
+
+    private static String allValues(Map<String, Long> counts) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            sb.append("  ").append(facetLabel(e.getKey())).append(": ").append(e.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String facetLabel(String value) {
+        return value.isEmpty() ? "(none)" : value;
+    }
+
+    private void refreshIfPaged() {
+        if (studentsTable.getItems() instanceof PagedStudentList) {
+            reload();
+        }
+    }
+
+    private Comparator<Student> currentOrder() {
+        Comparator<Student> comparator = studentsTable.getComparator();
+        return comparator != null ? comparator : Comparator.comparingInt(Student::getId);
+    }
+
+    private int insertionPoint(List<Student> items, Student student) {
+        int pos = Collections.binarySearch(items, student, currentOrder());
+        return pos < 0 ? -pos - 1 : pos;
+    }
+
+    // Binary search for the row, then a scan over neighbours that compare equal. An exact match is the
+    // same instance (or an equal view of the same store row); otherwise any row with the same id will do,
+    // since streamed rows are replaced by row views once loading completes.
+    // Without a sort column the items are in no particular order and are scanned linearly.
+    private int locate(List<Student> items, Student student, boolean exact) {
+        if (studentsTable.getComparator() == null) {
+            for (int i = 0; i < items.size(); i++) {
+                if (matches(items.get(i), student, exact)) return i;
+            }
+            return -1;
+        }
+        Comparator<Student> order = currentOrder();
+        int pos = Collections.binarySearch(items, student, order);
+        if (pos < 0) {
+            return -1;
+        }
+        for (int i = pos; i >= 0 && order.compare(items.get(i), student) == 0; i--) {
+            if (matches(items.get(i), student, exact)) return i;
+        }
+        for (int i = pos + 1; i < items.size() && order.compare(items.get(i), student) == 0; i++) {
+            if (matches(items.get(i), student, exact)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean matches(Student row, Student student, boolean exact) {
+        return row.equals(student) || !exact && row.getId() == student.getId();
+    }
+
+    private void reload() {
         clearForm();
-        loadStudents();
+        loadInBackground();
     }
 }
\ No newline at end of file
@@ -15,8 +15,7 @@ import com.example.cms.models.Session;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.sql.SQLTransientException;
 
 public class LoginController {
 
@@ -24,18 +23,11 @@ public class LoginController {
     @FXML private PasswordField passwordField;
     @FXML private ProgressIndicator loadingIndicator;
 
-    private ExecutorService executorService;
-
     @FXML
     public void initialize() {
         if (loadingIndicator != null) {
             loadingIndicator.setVisible(false);
         }
-        executorService = Executors.newSingleThreadExecutor(r -> {
-            Thread thread = new Thread(r);
-            thread.setDaemon(true);
-            return thread;
-        });
     }
 
     @FXML
@@ -50,11 +42,11 @@ public class LoginController {
 
         showLoading(true);
 
-        executorService.submit(() -> {
+        Database.executor().submit(() -> {
             try {
-                if (Database.validateUser(u, p)) {
-                    int id = Database.getUserId(u);
-                    Session.setCurrentUserId(id);
+                int id = Database.authenticateUser(u, p);
+                if (id != -1) {
+                    Session.start(id, u);
 
                     Platform.runLater(() -> {
                         try {
@@ -78,6 +70,11 @@ public class LoginController {
                         showError("Login Failed", "Invalid username or password");
                     });
                 }
+            } catch (SQLTransientException e) {
+                Platform.runLater(() -> {
+                    showLoading(false);
+                    showError("Login Busy", e.getMessage());
+                });
             } catch (SQLException e) {
                 Platform.runLater(() -> {
                     showLoading(false);
@@ -90,7 +87,6 @@ public class LoginController {
     @FXML
     protected void goToRegister() {
         try {
-            cleanup();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cms/register.fxml"));
             Scene scene = new Scene(loader.load());
             HelloApplication.getPrimaryStage().setScene(scene);
@@ -112,10 +108,4 @@ public class LoginController {
         a.setContentText(message);
         a.showAndWait();
     }
-
-    public void cleanup() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
-    }
 }
\ No newline at end of file
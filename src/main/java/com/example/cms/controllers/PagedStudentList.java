@@ -0,0 +1,163 @@
+package com.example.cms.controllers;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import com.example.cms.database.Database;
+import com.example.cms.database.PageKey;
+import com.example.cms.database.StudentSort;
+import com.example.cms.models.Student;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+// Virtualized roster for the TableView: only the pages the table actually asks for are fetched
+// (keyset pagination), and at most maxPages of them are kept in memory.
+// Rows that are not loaded yet read as null until their page arrives.
+// Must only be used from the JavaFX application thread.
+public class PagedStudentList extends ObservableListBase<Student> {
+
+    private final int userId;
+    private final int size;
+    private final int pageSize;
+    private final Executor executor;
+    private final Consumer<SQLException> errorHandler;
+    private final Map<Integer, List<Student>> pages;
+    // anchors.get(p) is the key of the last row before page p; page 0 starts at the beginning
+    private final TreeMap<Integer, PageKey> anchors = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+
+    private StudentSort sort = StudentSort.ID;
+    private boolean ascending = true;
+    // Bumped on every sort change so that pages fetched for the previous order are dropped
+    private int generation = 0;
+
+    public PagedStudentList(int userId, int size, int pageSize, int maxPages,
+                            Executor executor, Consumer<SQLException> errorHandler) {
+        this.userId = userId;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.errorHandler = errorHandler;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Student>> eldest) {
+                return size() > maxPages;
+            }
+        };
+        anchors.put(0, null);
+    }
+
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / pageSize;
+        List<Student> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index % pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public StudentSort getSort() {
+        return sort;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    // ORDER BY pushdown: drops every loaded page and lets the table fetch the visible ones again
+    public void setSort(StudentSort sort, boolean ascending) {
+        if (this.sort == sort && this.ascending == ascending) {
+            return;
+        }
+        this.sort = sort;
+        this.ascending = ascending;
+        generation++;
+        pages.clear();
+        loading.clear();
+        anchors.clear();
+        anchors.put(0, null);
+
+        replaced(0, size);
+    }
+
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+
+        // Start from the closest page whose starting key is already known
+        int anchorPage = anchors.floorKey(page);
+        PageKey anchor = anchors.get(anchorPage);
+        StudentSort requestedSort = sort;
+        boolean requestedAscending = ascending;
+        int requestedGeneration = generation;
+
+        executor.execute(() -> {
+            try {
+                PageKey start = anchor;
+                if (anchorPage < page) {
+                    start = Database.seekPageKeyForUser(userId, requestedSort, requestedAscending,
+                            anchor, (page - anchorPage) * pageSize - 1);
+                }
+                List<Student> rows = start == null && page > 0
+                        ? Collections.emptyList()
+                        : Database.getStudentsPageForUser(userId, requestedSort, requestedAscending, start, pageSize);
+                PageKey pageStart = start;
+                Platform.runLater(() -> pageLoaded(requestedGeneration, page, pageStart, rows));
+            } catch (SQLException e) {
+                Platform.runLater(() -> {
+                    if (requestedGeneration == generation) {
+                        loading.remove(page);
+                    }
+                    errorHandler.accept(e);
+                });
+            }
+        });
+    }
+
+    private void pageLoaded(int requestedGeneration, int page, PageKey start, List<Student> rows) {
+        if (requestedGeneration != generation) {
+            return;
+        }
+        loading.remove(page);
+        pages.put(page, rows);
+        anchors.put(page, start);
+        if (!rows.isEmpty()) {
+            anchors.put(page + 1, PageKey.of(sort, rows.get(rows.size() - 1)));
+        }
+
+        int from = page * pageSize;
+        replaced(from, Math.min(from + rows.size(), size));
+    }
+
+    // One replacement covering [from, to) instead of an event per row, so listeners do O(1) work
+    // however large the range. The removed rows are reported as nulls; nobody holds on to them.
+    private void replaced(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        beginChange();
+        nextRemove(from, Collections.nCopies(to - from, null));
+        nextAdd(from, to);
+        endChange();
+    }
+}
@@ -14,8 +14,6 @@ import com.example.cms.HelloApplication;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class RegisterController {
 
@@ -24,18 +22,11 @@ public class RegisterController {
     @FXML private PasswordField confirmPasswordField;
     @FXML private ProgressIndicator loadingIndicator;
 
-    private ExecutorService executorService;
-
     @FXML
     public void initialize() {
         if (loadingIndicator != null) {
             loadingIndicator.setVisible(false);
         }
-        executorService = Executors.newSingleThreadExecutor(r -> {
-            Thread thread = new Thread(r);
-            thread.setDaemon(true);
-            return thread;
-        });
     }
 
     @FXML
@@ -66,7 +57,7 @@ public class RegisterController {
 
         showLoading(true);
 
-        executorService.submit(() -> {
+        Database.executor().submit(() -> {
             try {
                 boolean ok = Database.registerUser(u, p);
                 Platform.runLater(() -> {
@@ -94,7 +85,6 @@ public class RegisterController {
     @FXML
     protected void goToLogin() {
         try {
-            cleanup();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cms/login.fxml"));
             Scene scene = new Scene(loader.load());
             HelloApplication.getPrimaryStage().setScene(scene);
@@ -116,10 +106,4 @@ public class RegisterController {
         a.setContentText(message);
         a.showAndWait();
     }
-
-    public void cleanup() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.example.cms.controllers;
+
+import javafx.application.Platform;
+import com.example.cms.database.DatabaseExecutor;
+import com.example.cms.database.QueryHandle;
+import com.example.cms.database.StudentQuery;
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.models.Student;
+import com.example.cms.search.StudentSearchIndex;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Debounced, superseding search-as-you-type. Every keystroke takes the next sequence number, cancels
+// the pending debounce and interrupts the query still running for an older keystroke (QueryHandle,
+// i.e. sqlite3_interrupt). Only a result whose sequence number is still the latest, checked again on
+// the FX thread, reaches the table.
+// A plain-text query that narrows the last completed one (typing further, see
+// StudentSearchIndex.narrows) is answered by filtering that result in memory instead of querying again.
+public class SearchPipeline {
+
+    @FunctionalInterface
+    public interface Search {
+        List<Student> run(String text, QueryHandle handle) throws SQLException;
+    }
+
+    // Runs on the search thread and returns the update to apply on the FX thread
+    @FunctionalInterface
+    public interface ResultHandler {
+        Runnable prepare(String text, List<Student> results);
+    }
+
+    @FunctionalInterface
+    public interface ErrorHandler {
+        void accept(String text, Exception error);
+    }
+
+    // One timer thread for every screen; it only hands due searches over to the database executor
+    private static final ScheduledExecutorService DEBOUNCER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cms-search-debounce").daemon().factory());
+
+    private record Completed(String text, List<Student> results) {
+    }
+
+    private final DatabaseExecutor.Latest executor;
+    private final long debounceMillis;
+    private final Search search;
+    private final ResultHandler onResults;
+    private final ErrorHandler onError;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ScheduledFuture<?> pending;
+    private QueryHandle running;
+    // Base for narrowing; dropped whenever the roster changes
+    private volatile Completed last;
+    private final AtomicLong rosterVersion = new AtomicLong();
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder debounced = new LongAdder();
+    private final LongAdder narrowed = new LongAdder();
+    private final LongAdder searched = new LongAdder();
+    private final LongAdder interrupted = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    // Search and ResultHandler.prepare run on a virtual thread of the executor, ErrorHandler on the FX thread.
+    // ErrorHandler receives whatever they throw, unless a newer keystroke has superseded the search.
+    public SearchPipeline(DatabaseExecutor.Latest executor, long debounceMillis, Search search,
+                          ResultHandler onResults, ErrorHandler onError) {
+        this.executor = executor;
+        this.debounceMillis = debounceMillis;
+        this.search = search;
+        this.onResults = onResults;
+        this.onError = onError;
+    }
+
+    public synchronized void submit(String text) {
+        long seq = supersede();
+        requested.increment();
+        pending = DEBOUNCER.schedule(() -> executor.submit(() -> run(seq, text)), debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Drops the pending and the running search, e.g. because the table is about to show something else
+    public synchronized void cancel() {
+        supersede();
+    }
+
+    // The roster changed, so the last result no longer describes it
+    public void invalidate() {
+        rosterVersion.incrementAndGet();
+        last = null;
+    }
+
+    public SearchStats getStats() {
+        return new SearchStats(requested.sum(), debounced.sum(), narrowed.sum(), searched.sum(),
+                interrupted.sum(), stale.sum());
+    }
+
+    private synchronized long supersede() {
+        if (pending != null && pending.cancel(false)) {
+            debounced.increment();
+        }
+        pending = null;
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+        return sequence.incrementAndGet();
+    }
+
+    private boolean isLatest(long seq) {
+        return sequence.get() == seq;
+    }
+
+    private void run(long seq, String text) {
+        QueryHandle handle = new QueryHandle();
+        synchronized (this) {
+            if (!isLatest(seq)) {
+                stale.increment();
+                return;
+            }
+            running = handle;
+        }
+
+        long version = rosterVersion.get();
+        boolean plain = !StudentQuery.isStructured(text);
+        Completed base = last;
+        try {
+            List<Student> results;
+            if (plain && base != null && StudentSearchIndex.narrows(base.text(), text)) {
+                narrowed.increment();
+                results = StudentSearchIndex.filter(base.results(), text);
+            } else {
+                searched.increment();
+                results = search.run(text, handle);
+            }
+            if (!isLatest(seq)) {
+                stale.increment();
+                return;
+            }
+            if (plain && rosterVersion.get() == version) {
+                last = new Completed(text, List.copyOf(results));
+            }
+            Runnable update = onResults.prepare(text, results);
+            Diagnostics.runLater("search.results", () -> {
+                if (isLatest(seq)) {
+                    update.run();
+                } else {
+                    stale.increment();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            // Including failures of onResults.prepare and the in-memory filter, which would otherwise
+            // be lost in the executor task
+            if (handle.isCancelled() || !isLatest(seq)) {
+                interrupted.increment();
+                return;
+            }
+            Platform.runLater(() -> {
+                if (isLatest(seq)) {
+                    onError.accept(text, e);
+                }
+            });
+        } finally {
+            synchronized (this) {
+                if (running == handle) {
+                    running = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.cms.controllers;
+
+// requested: keystrokes handed to the pipeline; debounced: dropped before they were due;
+// narrowed: answered by filtering the previous result; searched: by SQLite or the roster index;
+// interrupted: queries cancelled while running; stale: finished but superseded, never shown
+public record SearchStats(
+        long requested,
+        long debounced,
+        long narrowed,
+        long searched,
+        long interrupted,
+        long stale
+) {
+
+    @Override
+    public String toString() {
+        return String.format("search[requested=%d, debounced=%d, narrowed=%d, searched=%d, interrupted=%d, stale=%d]",
+                requested, debounced, narrowed, searched, interrupted, stale);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.cms.database;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Bounded retry for transient lock errors (SQLITE_BUSY, SQLITE_LOCKED). busy_timeout already makes a
+// statement wait for another connection's lock; this covers what it cannot: a lock held for longer
+// than the timeout (another process, a long checkpoint) and BUSY_SNAPSHOT, which SQLite reports
+// without waiting. Backoff doubles per attempt up to maxDelay and is fully jittered, so transactions
+// that failed together do not all retry at the same moment.
+final class BusyRetry {
+
+    static final int DEFAULT_MAX_ATTEMPTS = 5;
+    static final long DEFAULT_BASE_DELAY_MILLIS = 10;
+    static final long DEFAULT_MAX_DELAY_MILLIS = 1_000;
+
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+
+    BusyRetry(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Backoff delays must satisfy 0 <= base <= max");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(baseDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    }
+
+    // -Dcms.db.busyAttempts, -Dcms.db.busyBackoffMillis, -Dcms.db.busyMaxBackoffMillis
+    static BusyRetry fromSystemProperties() {
+        return new BusyRetry(
+                Integer.getInteger("cms.db.busyAttempts", DEFAULT_MAX_ATTEMPTS),
+                Long.getLong("cms.db.busyBackoffMillis", DEFAULT_BASE_DELAY_MILLIS),
+                Long.getLong("cms.db.busyMaxBackoffMillis", DEFAULT_MAX_DELAY_MILLIS));
+    }
+
+    int maxAttempts() {
+        return maxAttempts;
+    }
+
+    // Pause before the retry that follows failed attempt `attempt` (1-based): uniform in [0, min(max, base * 2^(attempt-1))]
+    long delayNanos(int attempt) {
+        long cap = Math.min(maxDelayNanos, baseDelayNanos << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // sqlite-jdbc reports the result code as the error code (extended codes keep the primary one in the low byte)
+    static boolean isBusy(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqlException) {
+                int code = sqlException.getErrorCode() & 0xff;
+                String message = String.valueOf(sqlException.getMessage());
+                if (code == SQLITE_BUSY || code == SQLITE_LOCKED
+                        || message.contains("[SQLITE_BUSY") || message.contains("[SQLITE_LOCKED")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.cms.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final PoolConfig config;
+    private final Semaphore permits;
+    // Used as a stack so the most recently returned (warmest) connection is handed out first
+    private final Deque<PhysicalConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private volatile boolean closed = false;
+
+    public ConnectionPool(PoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.checkoutTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out waiting for a database connection after "
+                        + config.checkoutTimeoutMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PhysicalConnection physical = takeValid();
+            active.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // A connection outside the pool for a long-lived owner such as the writer thread. It is set up
+    // and statement-cached like a pooled one, takes no permit, and close() really closes it.
+    public Connection openDedicated() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        PhysicalConnection physical = open();
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(physical, true));
+    }
+
+    public PoolStats getStats() {
+        long count = checkouts.sum();
+        double avgWait = count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / count;
+        return new PoolStats(
+                config.maxSize(),
+                active.get(),
+                idle.size(),
+                count,
+                timeouts.sum(),
+                avgWait,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementCacheHits.sum(),
+                statementCacheMisses.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PhysicalConnection c;
+        while ((c = idle.pollFirst()) != null) {
+            c.close();
+        }
+    }
+
+    private PhysicalConnection takeValid() throws SQLException {
+        PhysicalConnection c;
+        while ((c = idle.pollFirst()) != null) {
+            if (isUsable(c.connection)) {
+                return c;
+            }
+            c.close();
+        }
+        return open();
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        Connection c = DriverManager.getConnection(config.url());
+        try (Statement stmt = c.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA mmap_size=" + config.mmapSizeBytes());
+            // Negative cache_size is interpreted by SQLite as KiB rather than pages
+            stmt.execute("PRAGMA cache_size=-" + config.cacheSizeKib());
+            // How long a statement waits for another connection's write lock before failing with SQLITE_BUSY
+            stmt.execute("PRAGMA busy_timeout=" + config.busyTimeoutMillis());
+        } catch (SQLException e) {
+            closeQuietly(c);
+            throw e;
+        }
+        return new PhysicalConnection(c,
+                new StatementCache(config.statementCacheSize(), statementCacheHits, statementCacheMisses));
+    }
+
+    private void release(PhysicalConnection physical) {
+        active.decrementAndGet();
+        try {
+            if (!closed && reset(physical.connection)) {
+                idle.offerFirst(physical);
+            } else {
+                physical.close();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean reset(Connection c) {
+        try {
+            if (c.isClosed()) {
+                return false;
+            }
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isUsable(Connection c) {
+        try {
+            return !c.isClosed() && c.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        checkouts.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private Connection wrap(PhysicalConnection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(physical, false));
+    }
+
+    private record PhysicalConnection(Connection connection, StatementCache statements) {
+
+        private void close() {
+            statements.closeAll();
+            closeQuietly(connection);
+        }
+    }
+
+    // Hands the physical connection back to the pool on close() instead of closing it (unless dedicated)
+    private final class PooledConnectionHandler implements InvocationHandler {
+
+        private final PhysicalConnection physical;
+        private final boolean dedicated;
+        private boolean returned = false;
+
+        private PooledConnectionHandler(PhysicalConnection physical, boolean dedicated) {
+            this.physical = physical;
+            this.dedicated = dedicated;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        if (dedicated) {
+                            physical.close();
+                        } else {
+                            release(physical);
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical.connection + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                }
+            }
+
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                return physical.statements.prepare(physical.connection, (String) args[0]);
+            }
+
+            try {
+                return method.invoke(physical.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
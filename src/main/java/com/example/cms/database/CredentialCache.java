@@ -0,0 +1,107 @@
+package com.example.cms.database;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Users that have logged in successfully, so a repeat login is checked in memory instead of with
+// SQLite and a key derivation. Entries are keyed by an HMAC-SHA256 of username and password under a
+// random key that only lives in this process; neither the password nor its stored hash is kept.
+// Every lookup costs one HMAC and one hash lookup whatever the username, so a miss takes the same time
+// for a cached user with a wrong password as for an unknown one and does not reveal who logged in
+// recently. What remains observable is that a correct password for a cached user is answered without
+// the key derivation, which only tells someone who already holds that password that the account was
+// used recently. LRU, bounded by maxEntries (0 disables the cache); a user has at most one entry.
+final class CredentialCache {
+
+    private record Key(byte[] digest) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(digest);
+        }
+    }
+
+    private record Credential(String username, int userId) {
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Credential> entries;
+    // Only used when storing, so a new password replaces the user's previous entry
+    private final Map<String, Key> keysByUsername = new HashMap<>();
+    private final Mac mac;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    CredentialCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Credential> eldest) {
+                if (size() <= CredentialCache.this.maxEntries) {
+                    return false;
+                }
+                keysByUsername.remove(eldest.getValue().username(), eldest.getKey());
+                return true;
+            }
+        };
+        try {
+            mac = Mac.getInstance("HmacSHA256");
+            mac.init(KeyGenerator.getInstance("HmacSHA256").generateKey());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to set up the credential cache", e);
+        }
+    }
+
+    // The user's id if this username and password logged in before, -1 if the login has to be checked the slow way
+    synchronized int verify(String username, String password) {
+        Credential credential = entries.get(key(username, password));
+        if (credential == null) {
+            misses++;
+            return -1;
+        }
+        hits++;
+        return credential.userId();
+    }
+
+    synchronized void put(String username, int userId, String password) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Key key = key(username, password);
+        Key previous = keysByUsername.put(username, key);
+        if (previous != null && !previous.equals(key)) {
+            entries.remove(previous);
+        }
+        entries.put(key, new Credential(username, userId));
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        keysByUsername.clear();
+    }
+
+    synchronized CredentialCacheStats getStats() {
+        return new CredentialCacheStats(entries.size(), maxEntries, hits, misses);
+    }
+
+    // The username is length-prefixed so that no two username/password pairs share an input
+    private Key key(String username, String password) {
+        byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(user.length).array());
+        mac.update(user);
+        return new Key(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+}
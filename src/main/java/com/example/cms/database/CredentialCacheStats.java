@@ -0,0 +1,20 @@
+package com.example.cms.database;
+
+public record CredentialCacheStats(
+        int entries,
+        int maxEntries,
+        long hits,
+        long misses
+) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("credentialCache[entries=%d/%d, hits=%d/%d (%.1f%%)]",
+                entries, maxEntries, hits, hits + misses, hitRate() * 100);
+    }
+}
@@ -3,71 +3,97 @@ package com.example.cms.database;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import com.example.cms.models.Student;
+import com.example.cms.security.HasherStats;
+import com.example.cms.security.PasswordHasher;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.sql.*;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
 
 public class Database {
 
     private static final String URL = "jdbc:sqlite:courses.db";
+    // The trigram tokenizer can only match queries of at least three characters
+    private static final int MIN_FTS_QUERY_LENGTH = 3;
+    private static final String ALL_STUDENTS_SQL = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE user_id = ? ORDER BY student_id";
+    // CROSS JOIN keeps the FTS match as the outer loop. Without planner statistics SQLite may
+    // otherwise walk the user's rows and run the MATCH once per row.
+    private static final String FTS_SEARCH_SQL = "SELECT s.student_id, s.name, s.surname, s.faculty, s.department, s.student_group " +
+            "FROM students_fts f CROSS JOIN students s ON s.id = f.rowid " +
+            "WHERE students_fts MATCH ? AND s.user_id = ? ORDER BY s.student_id";
+    private static final String SCAN_SEARCH_SQL = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE user_id = ? AND (" +
+            "LOWER(CAST(student_id AS TEXT)) LIKE ? OR LOWER(name) LIKE ? OR LOWER(surname) LIKE ? OR LOWER(COALESCE(faculty, '')) LIKE ? OR LOWER(COALESCE(department, '')) LIKE ? OR LOWER(COALESCE(student_group, '')) LIKE ?) ORDER BY student_id";
+    private static final ConnectionPool POOL = new ConnectionPool(PoolConfig.fromSystemProperties(URL));
+    // Every write goes through this queue's single writer thread and its own connection.
+    // Group commit window and batch size, overridable with -Dcms.db.writeWindowMicros / -Dcms.db.writeBatchSize
+    private static final WriteBehindQueue WRITES = new WriteBehindQueue(POOL,
+            Long.getLong("cms.db.writeWindowMicros", 2000), Integer.getInteger("cms.db.writeBatchSize", 256),
+            BusyRetry.fromSystemProperties());
+    // Runs the database work of every screen; the pool only serves reads, so it can use all of it
+    private static final DatabaseExecutor EXECUTOR = new DatabaseExecutor(POOL.getConfig().maxSize());
+    // Bounds overridable with -Dcms.cache.maxEntries / -Dcms.cache.maxWeightBytes
+    private static final RosterCache ROSTERS = new RosterCache(
+            Integer.getInteger("cms.cache.maxEntries", 64), Long.getLong("cms.cache.maxWeightBytes", 64L * 1024 * 1024));
+    private static final CredentialCache CREDENTIALS = new CredentialCache(Integer.getInteger("cms.auth.cacheSize", 1024));
+    private static final PasswordHasher HASHER = PasswordHasher.fromSystemProperties();
 
     public static Connection connect() throws SQLException {
-        return DriverManager.getConnection(URL);
+        return POOL.getConnection();
     }
 
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
+    }
+
+    public static DatabaseExecutor executor() {
+        return EXECUTOR;
+    }
+
+    public static ExecutorStats getExecutorStats() {
+        return EXECUTOR.getStats();
+    }
+
+    public static void shutdown() {
+        EXECUTOR.close();
+        HASHER.close();
+        // Refresh planner statistics that drifted during the session; the writer runs it after the
+        // writes still queued, and close() waits for both
+        CompletableFuture<Integer> optimized = WRITES.submitExclusive(conn -> {
+            SchemaMigrations.optimize(conn);
+            return 0;
+        });
+        WRITES.close();
+        optimized.exceptionally(e -> {
+            System.err.println("Error optimizing database: " + e.getMessage());
+            return 0;
+        });
+        ROSTERS.clear();
+        CREDENTIALS.clear();
+        POOL.close();
+    }
+
+    // Brings the schema up to date; see SchemaMigrations for the versioned changes. Runs on the
+    // writer's connection like every other write.
     public static void createTables() {
-        String usersSql = """
-            CREATE TABLE IF NOT EXISTS users (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                username TEXT NOT NULL UNIQUE,
-                password TEXT NOT NULL
-            );
-            """;
-
-        String studentsSql = """
-            CREATE TABLE IF NOT EXISTS students (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                student_id INTEGER NOT NULL,
-                name TEXT NOT NULL,
-                surname TEXT NOT NULL,
-                faculty TEXT,
-                department TEXT,
-                student_group TEXT,
-                user_id INTEGER,
-                UNIQUE(student_id, user_id),
-                FOREIGN KEY(user_id) REFERENCES users(id)
-            );
-            """;
-
-        try (Connection conn = connect();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(usersSql);
-            stmt.execute(studentsSql);
+        try {
+            await(WRITES.submitExclusive(SchemaMigrations::migrate), "the schema migration");
         } catch (SQLException e) {
             System.err.println("Error creating tables: " + e.getMessage());
             throw new RuntimeException("Failed to initialize database", e);
         }
     }
 
-    private static String hashPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Failed to hash password", e);
-        }
-    }
-
     public static boolean registerUser(String username, String password) throws SQLException {
-        String sql = "INSERT INTO users(username, password) VALUES (?, ?)";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            pstmt.setString(2, hashPassword(password));
-            pstmt.executeUpdate();
+        String hash = await(HASHER.hash(password), "the password hash");
+        try {
+            write(conn -> insertUser(conn, username, hash));
             return true;
         } catch (SQLException e) {
             if (e.getMessage().contains("UNIQUE constraint failed")) {
@@ -77,50 +103,151 @@ public class Database {
         }
     }
 
+    static int insertUser(Connection conn, String username, String hash) throws SQLException {
+        String sql = "INSERT INTO users(username, password) VALUES (?, ?)";
+        try (DbOperation op = DbOperation.start("db.user.register", sql);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, username);
+            pstmt.setString(2, hash);
+            int inserted = op.executed(pstmt.executeUpdate());
+            op.rows(inserted);
+            return inserted;
+        }
+    }
+
+    // Runs a write on the writer thread and waits until it has committed
+    static int write(WriteBehindQueue.Write write) throws SQLException {
+        return await(WRITES.submit(null, write), "the write to commit");
+    }
+
     public static boolean validateUser(String username, String password) throws SQLException {
-        String sql = "SELECT id FROM users WHERE username = ? AND password = ?";
-        try (Connection conn = connect();
+        return authenticateUser(username, password) != -1;
+    }
+
+    // The user's id, or -1 for an unknown username or a wrong password. One lookup on the username's
+    // unique index returns both the id and the stored hash, which is then checked on the hashing pool
+    // after the connection is back in the pool; a repeat login is answered from memory.
+    public static int authenticateUser(String username, String password) throws SQLException {
+        int cached = CREDENTIALS.verify(username, password);
+        if (cached != -1) {
+            return cached;
+        }
+
+        String sql = "SELECT id, password FROM users WHERE username = ?";
+        int id = -1;
+        String stored = null;
+        try (DbOperation op = DbOperation.start("db.user.authenticate", sql);
+             Connection conn = op.connected(connect());
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            pstmt.setString(2, hashPassword(password));
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next();
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                if (rs.next()) {
+                    id = rs.getInt("id");
+                    stored = rs.getString("password");
+                }
+                op.rows(id == -1 ? 0 : 1);
             }
         }
+
+        // Unknown users are hashed too, so that they take as long as a wrong password
+        if (!await(HASHER.verify(password, stored), "the password check") || id == -1) {
+            return -1;
+        }
+        CREDENTIALS.put(username, id, password);
+        if (HASHER.needsRehash(stored)) {
+            rehashInBackground(id, stored, password);
+        }
+        return id;
+    }
+
+    // Replaces a legacy or outdated hash once the password is known to be right. The update only
+    // applies while the old hash is still stored, so concurrent logins cannot overwrite a newer one.
+    private static void rehashInBackground(int userId, String oldHash, String password) {
+        String sql = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+        HASHER.hash(password).thenCompose(newHash -> WRITES.submit(null, conn -> {
+            try (DbOperation op = DbOperation.start("db.user.rehash", sql);
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, newHash);
+                pstmt.setInt(2, userId);
+                pstmt.setString(3, oldHash);
+                int updated = op.executed(pstmt.executeUpdate());
+                op.rows(updated);
+                return updated;
+            }
+        })).exceptionally(e -> {
+            System.err.println("Error upgrading password hash: " + e.getMessage());
+            return null;
+        });
+    }
+
+    public static CredentialCacheStats getCredentialCacheStats() {
+        return CREDENTIALS.getStats();
+    }
+
+    public static HasherStats getHasherStats() {
+        return HASHER.getStats();
     }
 
     public static int getUserId(String username) throws SQLException {
         String sql = "SELECT id FROM users WHERE username = ?";
-        try (Connection conn = connect();
+        try (DbOperation op = DbOperation.start("db.user.id", sql);
+             Connection conn = op.connected(connect());
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return rs.getInt("id");
-                else return -1;
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                int id = rs.next() ? rs.getInt("id") : -1;
+                op.rows(id == -1 ? 0 : 1);
+                return id;
+            }
+        }
+    }
+
+    // null if the user has no student with this id
+    public static Student getStudentForUser(int studentId, int userId) throws SQLException {
+        String sql = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE student_id = ? AND user_id = ?";
+        try (DbOperation op = DbOperation.start("db.student.get", sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, studentId);
+            pstmt.setInt(2, userId);
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                Student student = rs.next() ? mapStudent(rs) : null;
+                op.rows(student == null ? 0 : 1);
+                return student;
             }
         }
     }
 
     public static boolean studentIdExists(int studentId, int userId) throws SQLException {
         String sql = "SELECT COUNT(*) as count FROM students WHERE student_id = ? AND user_id = ?";
-        try (Connection conn = connect();
+        try (DbOperation op = DbOperation.start("db.student.exists", sql);
+             Connection conn = op.connected(connect());
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, studentId);
             pstmt.setInt(2, userId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.getInt("count") > 0;
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                boolean exists = rs.getInt("count") > 0;
+                op.rows(1);
+                return exists;
             }
         }
     }
 
     public static void addStudentForUser(Student student, int userId) throws SQLException {
-        if (studentIdExists(student.getId(), userId)) {
-            throw new SQLException("Student with ID " + student.getId() + " already exists");
-        }
+        await(addStudentForUserAsync(student, userId), "the write to commit");
+    }
 
-        String sql = "INSERT INTO students(student_id, name, surname, faculty, department, student_group, user_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    // Asynchronous writes go through the write-behind queue; the future completes once the
+    // transaction containing the write has been committed
+    public static CompletableFuture<Integer> addStudentForUserAsync(Student student, int userId) {
+        Student row = copyOf(student);
+        return invalidatingRosters(userId, WRITES.submit(new StudentKey(row.getId(), userId), conn -> insertStudent(conn, row, userId)));
+    }
+
+    static int insertStudent(Connection conn, Student student, int userId) throws SQLException {
+        String sql = "INSERT INTO students(student_id, name, surname, faculty, department, student_group, user_id) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT(student_id, user_id) DO NOTHING";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, student.getId());
             pstmt.setString(2, student.getName());
             pstmt.setString(3, student.getSurname());
@@ -128,36 +255,115 @@ public class Database {
             pstmt.setString(5, nullIfEmpty(student.getDepartment()));
             pstmt.setString(6, nullIfEmpty(student.getGroup()));
             pstmt.setInt(7, userId);
-            pstmt.executeUpdate();
+            int inserted = pstmt.executeUpdate();
+            if (inserted == 0) {
+                throw new SQLException("Student with ID " + student.getId() + " already exists");
+            }
+            return inserted;
         }
     }
 
     public static ObservableList<Student> getAllStudentsForUser(int userId) throws SQLException {
-        ObservableList<Student> list = FXCollections.observableArrayList();
-        String sql = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE user_id = ? ORDER BY student_id";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return FXCollections.observableArrayList(ROSTERS.get(userId, "", () -> loadAllStudentsForUser(userId)));
+    }
+
+    private static List<Student> loadAllStudentsForUser(int userId) throws SQLException {
+        List<Student> list = new ArrayList<>();
+        try (DbOperation op = DbOperation.start("db.roster.load", ALL_STUDENTS_SQL);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(ALL_STUDENTS_SQL)) {
             pstmt.setInt(1, userId);
-            try (ResultSet rs = pstmt.executeQuery()) {
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
                 while (rs.next()) {
-                    list.add(new Student(
-                            rs.getInt("student_id"),
-                            rs.getString("name"),
-                            rs.getString("surname"),
-                            emptyIfNull(rs.getString("faculty")),
-                            emptyIfNull(rs.getString("department")),
-                            emptyIfNull(rs.getString("student_group"))
-                    ));
+                    list.add(mapStudent(rs));
                 }
             }
+            op.rows(list.size());
         }
         return list;
     }
 
+    public static int countStudentsForUser(int userId) throws SQLException {
+        String sql = "SELECT COUNT(*) AS count FROM students WHERE user_id = ?";
+        try (DbOperation op = DbOperation.start("db.roster.count", sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                int count = rs.next() ? rs.getInt("count") : 0;
+                op.rows(1);
+                return count;
+            }
+        }
+    }
+
+    // Keyset pagination: returns up to limit rows that sort after the given key (null for the first page)
+    public static List<Student> getStudentsPageForUser(int userId, StudentSort sort, boolean ascending,
+                                                       PageKey after, int limit) throws SQLException {
+        String sql = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE user_id = ?" +
+                (after == null ? "" : " AND " + sort.after(ascending)) +
+                " ORDER BY " + sort.orderBy(ascending) + " LIMIT ?";
+
+        List<Student> page = new ArrayList<>(limit);
+        try (DbOperation op = DbOperation.start("db.roster.page", sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int next = bindPageKey(pstmt, userId, sort, after);
+            pstmt.setInt(next, limit);
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                while (rs.next()) {
+                    page.add(mapStudent(rs));
+                }
+            }
+            op.rows(page.size());
+        }
+        return page;
+    }
+
+    // Finds the key of the row that lies skip rows after the given key, without materializing the rows in between.
+    // Used to jump to a page whose predecessor was never loaded. Returns null past the end of the roster.
+    public static PageKey seekPageKeyForUser(int userId, StudentSort sort, boolean ascending,
+                                             PageKey after, int skip) throws SQLException {
+        String sql = "SELECT student_id, " + sort.expression() + " AS sort_key FROM students WHERE user_id = ?" +
+                (after == null ? "" : " AND " + sort.after(ascending)) +
+                " ORDER BY " + sort.orderBy(ascending) + " LIMIT 1 OFFSET ?";
+
+        try (DbOperation op = DbOperation.start("db.roster.seek", sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int next = bindPageKey(pstmt, userId, sort, after);
+            pstmt.setInt(next, skip);
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                PageKey key = rs.next() ? new PageKey(rs.getObject("sort_key"), rs.getInt("student_id")) : null;
+                op.rows(key == null ? 0 : 1);
+                return key;
+            }
+        }
+    }
+
+    private static int bindPageKey(PreparedStatement pstmt, int userId, StudentSort sort, PageKey after) throws SQLException {
+        int index = 1;
+        pstmt.setInt(index++, userId);
+        if (after != null) {
+            if (sort != StudentSort.ID) {
+                pstmt.setObject(index++, after.sortValue());
+            }
+            pstmt.setInt(index++, after.studentId());
+        }
+        return index;
+    }
+
     public static int deleteStudentForUser(int studentId, int userId) throws SQLException {
+        return await(deleteStudentForUserAsync(studentId, userId), "the write to commit");
+    }
+
+    public static CompletableFuture<Integer> deleteStudentForUserAsync(int studentId, int userId) {
+        return invalidatingRosters(userId, WRITES.submit(new StudentKey(studentId, userId), conn -> deleteStudent(conn, studentId, userId)));
+    }
+
+    static int deleteStudent(Connection conn, int studentId, int userId) throws SQLException {
         String sql = "DELETE FROM students WHERE student_id = ? AND user_id = ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, studentId);
             pstmt.setInt(2, userId);
             return pstmt.executeUpdate();
@@ -165,9 +371,18 @@ public class Database {
     }
 
     public static int updateStudentForUser(Student student, int userId) throws SQLException {
+        return await(updateStudentForUserAsync(student, userId), "the write to commit");
+    }
+
+    // Repeated updates of the same student that are still queued collapse into the latest one
+    public static CompletableFuture<Integer> updateStudentForUserAsync(Student student, int userId) {
+        Student row = copyOf(student);
+        return invalidatingRosters(userId, WRITES.submitCoalescing(new StudentKey(row.getId(), userId), conn -> updateStudent(conn, row, userId)));
+    }
+
+    static int updateStudent(Connection conn, Student student, int userId) throws SQLException {
         String sql = "UPDATE students SET name = ?, surname = ?, faculty = ?, department = ?, student_group = ? WHERE student_id = ? AND user_id = ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, student.getName());
             pstmt.setString(2, student.getSurname());
             pstmt.setString(3, nullIfEmpty(student.getFaculty()));
@@ -179,43 +394,312 @@ public class Database {
         }
     }
 
+    public static WriteQueueStats getWriteQueueStats() {
+        return WRITES.getStats();
+    }
+
+    public static RosterCacheStats getRosterCacheStats() {
+        return ROSTERS.getStats();
+    }
+
+    // Called after a write for the user has committed, or may have: cached rosters of the user are dropped
+    static void invalidateRosters(int userId) {
+        ROSTERS.invalidateUser(userId);
+    }
+
+    // The returned future completes only after the cache has been invalidated, so a caller that
+    // reloads from its completion callback never sees the pre-write roster
+    private static CompletableFuture<Integer> invalidatingRosters(int userId, CompletableFuture<Integer> write) {
+        return write.whenComplete((rows, error) -> invalidateRosters(userId));
+    }
+
+    private static <T> T await(CompletableFuture<T> future, String awaited) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for " + awaited, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof RejectedExecutionException) {
+                // The hashing queue is full: too many logins at once
+                throw new SQLTransientException("Too busy to complete " + awaited + ", please try again", e.getCause());
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    // The queued write must not see later changes the UI makes to the same Student object
+    private static Student copyOf(Student s) {
+        return new Student(s.getId(), s.getName(), s.getSurname(), s.getFaculty(), s.getDepartment(), s.getGroup());
+    }
+
     public static ObservableList<Student> searchStudentsForUser(String text, int userId) throws SQLException {
-        ObservableList<Student> list = FXCollections.observableArrayList();
-        String sql = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE user_id = ? AND (" +
-                "LOWER(CAST(student_id AS TEXT)) LIKE ? OR LOWER(name) LIKE ? OR LOWER(surname) LIKE ? OR LOWER(COALESCE(faculty, '')) LIKE ? OR LOWER(COALESCE(department, '')) LIKE ? OR LOWER(COALESCE(student_group, '')) LIKE ?) ORDER BY student_id";
-        String q = "%" + text.toLowerCase() + "%";
+        return searchStudentsForUser(text, userId, new QueryHandle());
+    }
+
+    // Cancelling the handle interrupts the query; an interrupted search is not cached
+    public static ObservableList<Student> searchStudentsForUser(String text, int userId, QueryHandle handle) throws SQLException {
+        String query = text.trim();
+        return FXCollections.observableArrayList(ROSTERS.get(userId, query, () -> {
+            if (!isFtsSearchable(query)) {
+                return scanStudentsForUser(toLikePattern(query), userId, handle);
+            }
+            return queryStudents("db.search.fts", FTS_SEARCH_SQL, toMatchExpression(query), userId, handle);
+        }));
+    }
+
+    // Streaming read: rows are emitted as SQLite produces them, paced by subscriber demand.
+    // A cached roster is replayed from memory; a completed stream from SQLite fills the cache.
+    public static Flow.Publisher<Student> publishStudentsForUser(int userId, Executor executor) {
+        List<Student> cached = ROSTERS.getIfPresent(userId, "");
+        if (cached != null) {
+            return new StudentPublisher(cached, executor);
+        }
+        long generation = ROSTERS.generation(userId);
+        return new StudentPublisher(ALL_STUDENTS_SQL, pstmt -> pstmt.setInt(1, userId), executor,
+                rows -> ROSTERS.put(userId, "", generation, rows));
+    }
 
-        try (Connection conn = connect();
+    // One page of search results (plain or field:value text) in student id order, starting after
+    // afterStudentId (0 for the first page). LIMIT is applied by SQLite and the page bypasses the
+    // roster cache, so memory stays bounded by the page size whatever the query matches; for callers
+    // such as the HTTP server that must not hold or cache whole result lists.
+    public static List<Student> searchStudentsPageForUser(String text, int userId, int afterStudentId, int limit) throws SQLException {
+        String query = text.trim();
+        String matches;
+        List<Object> params = new ArrayList<>();
+        if (StudentQuery.isStructured(query)) {
+            StudentQuery.Compiled compiled = StudentQuery.parse(query).compile(userId);
+            matches = compiled.sql();
+            params.addAll(compiled.params());
+        } else if (!isFtsSearchable(query)) {
+            matches = SCAN_SEARCH_SQL;
+            params.add(userId);
+            String q = toLikePattern(query);
+            for (int i = 0; i < 6; i++) {
+                params.add(q);
+            }
+        } else {
+            matches = FTS_SEARCH_SQL;
+            params.add(toMatchExpression(query));
+            params.add(userId);
+        }
+        params.add(afterStudentId);
+        params.add(limit);
+
+        String sql = "SELECT * FROM (" + matches + ") WHERE student_id > ? ORDER BY student_id LIMIT ?";
+        try (DbOperation op = DbOperation.start("db.search.page", sql);
+             Connection conn = op.connected(connect());
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            pstmt.setString(2, q);
-            pstmt.setString(3, q);
-            pstmt.setString(4, q);
-            pstmt.setString(5, q);
-            pstmt.setString(6, q);
-            pstmt.setString(7, q);
-
-            try (ResultSet rs = pstmt.executeQuery()) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            return readStudents(op, pstmt, new QueryHandle());
+        }
+    }
+
+    // Structured field:value search (see StudentQuery); field terms are answered from the indexes
+    public static ObservableList<Student> searchStudentsByQueryForUser(String text, int userId) throws SQLException {
+        return searchStudentsByQueryForUser(text, userId, new QueryHandle());
+    }
+
+    public static ObservableList<Student> searchStudentsByQueryForUser(String text, int userId, QueryHandle handle) throws SQLException {
+        StudentQuery.Compiled query = StudentQuery.parse(text).compile(userId);
+        try (DbOperation op = DbOperation.start("db.search.query", query.sql());
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(query.sql())) {
+            for (int i = 0; i < query.params().size(); i++) {
+                pstmt.setObject(i + 1, query.params().get(i));
+            }
+            return readStudents(op, pstmt, handle);
+        }
+    }
+
+    // Grouped counts computed by SQLite; each GROUP BY is an index-only scan of the user's range in
+    // the matching (user_id, COALESCE(column, ''), student_id) index
+    public static FacetCounts getFacetCountsForUser(int userId) throws SQLException {
+        String source = "students WHERE user_id = ?";
+        return queryFacets("db.facets.roster", facetSql(source, source, source), pstmt -> {
+            for (int i = 1; i <= 3; i++) {
+                pstmt.setInt(i, userId);
+            }
+        });
+    }
+
+    // Counts for the rows a search would return; the matches are computed once and grouped three ways
+    public static FacetCounts getFacetCountsForSearch(String text, int userId) throws SQLException {
+        String query = text.trim();
+        if (query.isEmpty()) {
+            return getFacetCountsForUser(userId);
+        }
+        String matches;
+        StudentPublisher.StatementBinder binder;
+        if (!isFtsSearchable(query)) {
+            matches = SCAN_SEARCH_SQL;
+            String q = toLikePattern(query);
+            binder = pstmt -> bindScan(pstmt, q, userId);
+        } else {
+            matches = FTS_SEARCH_SQL;
+            String match = toMatchExpression(query);
+            binder = pstmt -> {
+                pstmt.setString(1, match);
+                pstmt.setInt(2, userId);
+            };
+        }
+        String sql = "WITH matches AS MATERIALIZED (" + matches + ") " + facetSql("matches", "matches", "matches");
+        return queryFacets("db.facets.search", sql, binder);
+    }
+
+    private static String facetSql(String facultySource, String departmentSource, String groupSource) {
+        return "SELECT 0 AS facet, COALESCE(faculty, '') AS value, COUNT(*) AS count FROM " + facultySource
+                + " GROUP BY COALESCE(faculty, '')"
+                + " UNION ALL SELECT 1, COALESCE(department, ''), COUNT(*) FROM " + departmentSource
+                + " GROUP BY COALESCE(department, '')"
+                + " UNION ALL SELECT 2, COALESCE(student_group, ''), COUNT(*) FROM " + groupSource
+                + " GROUP BY COALESCE(student_group, '')";
+    }
+
+    private static FacetCounts queryFacets(String operation, String sql, StudentPublisher.StatementBinder binder) throws SQLException {
+        List<Map<String, Long>> facets = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        long total = 0;
+        try (DbOperation op = DbOperation.start(operation, sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            binder.bind(pstmt);
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                while (rs.next()) {
+                    int facet = rs.getInt("facet");
+                    long count = rs.getLong("count");
+                    facets.get(facet).put(rs.getString("value"), count);
+                    if (facet == 0) {
+                        total += count;
+                    }
+                }
+            }
+            op.rows(facets.get(0).size() + facets.get(1).size() + facets.get(2).size());
+        }
+        return new FacetCounts(total, facets.get(0), facets.get(1), facets.get(2));
+    }
+
+    // The limit best matches, best first (bm25). Field searches and queries too short for the trigram
+    // index have no rank; they return the first page of searchStudentsPageForUser instead.
+    public static List<Student> searchStudentsRankedForUser(String text, int userId, int limit) throws SQLException {
+        String query = text.trim();
+        if (StudentQuery.isStructured(query) || !isFtsSearchable(query)) {
+            return searchStudentsPageForUser(query, userId, 0, limit);
+        }
+
+        String sql = "SELECT s.student_id, s.name, s.surname, s.faculty, s.department, s.student_group " +
+                "FROM students_fts f CROSS JOIN students s ON s.id = f.rowid " +
+                "WHERE students_fts MATCH ? AND s.user_id = ? ORDER BY f.rank LIMIT ?";
+        List<Student> list = new ArrayList<>();
+        try (DbOperation op = DbOperation.start("db.search.ranked", sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, toMatchExpression(query));
+            pstmt.setInt(2, userId);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = op.executed(pstmt.executeQuery())) {
                 while (rs.next()) {
-                    list.add(new Student(
-                            rs.getInt("student_id"),
-                            rs.getString("name"),
-                            rs.getString("surname"),
-                            emptyIfNull(rs.getString("faculty")),
-                            emptyIfNull(rs.getString("department")),
-                            emptyIfNull(rs.getString("student_group"))
-                    ));
+                    list.add(mapStudent(rs));
                 }
             }
+            op.rows(list.size());
+        }
+        return list;
+    }
+
+    // Fallback for queries too short for the trigram index; pattern comes from toLikePattern
+    private static ObservableList<Student> scanStudentsForUser(String pattern, int userId, QueryHandle handle) throws SQLException {
+        try (DbOperation op = DbOperation.start("db.search.scan", SCAN_SEARCH_SQL);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(SCAN_SEARCH_SQL)) {
+            bindScan(pstmt, pattern, userId);
+            return readStudents(op, pstmt, handle);
+        }
+    }
+
+    private static void bindScan(PreparedStatement pstmt, String q, int userId) throws SQLException {
+        pstmt.setInt(1, userId);
+        pstmt.setString(2, q);
+        pstmt.setString(3, q);
+        pstmt.setString(4, q);
+        pstmt.setString(5, q);
+        pstmt.setString(6, q);
+        pstmt.setString(7, q);
+    }
+
+    private static ObservableList<Student> queryStudents(String operation, String sql, String match, int userId,
+                                                         QueryHandle handle) throws SQLException {
+        try (DbOperation op = DbOperation.start(operation, sql);
+             Connection conn = op.connected(connect());
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, match);
+            pstmt.setInt(2, userId);
+            return readStudents(op, pstmt, handle);
+        }
+    }
+
+    // The handle can interrupt the statement from the moment it starts until its last row has been read
+    private static ObservableList<Student> readStudents(DbOperation op, PreparedStatement pstmt, QueryHandle handle) throws SQLException {
+        ObservableList<Student> list = FXCollections.observableArrayList();
+        handle.begin(pstmt);
+        try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+            while (rs.next()) {
+                list.add(mapStudent(rs));
+            }
+        } finally {
+            handle.end();
         }
+        op.rows(list.size());
         return list;
     }
 
+    static boolean isFtsSearchable(String query) {
+        String term = stripPrefixMarker(query);
+        return term.codePointCount(0, term.length()) >= MIN_FTS_QUERY_LENGTH;
+    }
+
+    // LIKE pattern for the scan fallback. As with the ^ anchor in toMatchExpression (and in
+    // StudentSearchIndex), "ab*" must match the start of a field; anything else matches anywhere.
+    static String toLikePattern(String query) {
+        String term = stripPrefixMarker(query).toLowerCase();
+        return term.length() < query.length() ? term + "%" : "%" + term + "%";
+    }
+
+    static String stripPrefixMarker(String query) {
+        return query.endsWith("*") ? query.substring(0, query.length() - 1) : query;
+    }
+
+    // A trailing '*' anchors the match to the start of a field ("ann*"), otherwise any substring matches
+    static String toMatchExpression(String query) {
+        String term = stripPrefixMarker(query);
+        String phrase = "\"" + term.replace("\"", "\"\"") + "\"";
+        return term.length() < query.length() ? "^" + phrase : phrase;
+    }
+
+    static Student mapStudent(ResultSet rs) throws SQLException {
+        return new Student(
+                rs.getInt("student_id"),
+                rs.getString("name"),
+                rs.getString("surname"),
+                emptyIfNull(rs.getString("faculty")),
+                emptyIfNull(rs.getString("department")),
+                emptyIfNull(rs.getString("student_group"))
+        );
+    }
+
     private static String emptyIfNull(String value) {
         return value == null ? "" : value;
     }
 
-    private static String nullIfEmpty(String value) {
+    static String nullIfEmpty(String value) {
         return (value == null || value.trim().isEmpty()) ? null : value;
     }
-}
\ No newline at end of file
+
+    private record StudentKey(int studentId, int userId) {
+    }
+}
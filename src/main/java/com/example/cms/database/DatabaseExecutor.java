@@ -0,0 +1,112 @@
+package com.example.cms.database;
+
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.diagnostics.LatencyHistogram;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Application-wide executor for database work. Every task gets its own virtual thread, so independent
+// reads run side by side instead of queueing behind one another on a per-screen thread.
+// At most maxConcurrency tasks run at once; the rest wait on a fair semaphore. The limit follows the
+// connection pool: waiting here instead of in the pool avoids checkout timeouts under load, and since
+// SQLite's native calls pin their carrier thread, no more carriers are tied up than there are connections.
+// Cancelling a task's Future interrupts it; a task still waiting for a permit then never starts.
+public final class DatabaseExecutor implements Executor, AutoCloseable {
+
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cms-db-task-", 0).factory());
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final LatencyHistogram permitWait = Diagnostics.histogram("db.executor.wait");
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public DatabaseExecutor(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return threads.submit(() -> run(task));
+    }
+
+    // Keeps only the most recent task of one kind (e.g. the search for the latest keystroke)
+    public Latest latest() {
+        return new Latest();
+    }
+
+    public ExecutorStats getStats() {
+        return new ExecutorStats(maxConcurrency, running.get(), waiting.get(), completed.sum(), cancelled.sum());
+    }
+
+    // Interrupts running tasks and waits briefly for them to let go of their connections
+    @Override
+    public void close() {
+        threads.shutdownNow();
+        try {
+            threads.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Runnable task) {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            // Cancelled or shut down before it started
+            return;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        permitWait.record(System.nanoTime() - start);
+
+        running.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            running.decrementAndGet();
+            permits.release();
+            completed.increment();
+        }
+    }
+
+    public final class Latest {
+
+        private Future<?> current;
+
+        // Cancels the previous task of this kind if it has not finished, then submits the new one
+        public synchronized Future<?> submit(Runnable task) {
+            cancel();
+            current = DatabaseExecutor.this.submit(task);
+            return current;
+        }
+
+        public synchronized void cancel() {
+            if (current != null && current.cancel(true)) {
+                cancelled.increment();
+            }
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.cms.database;
+
+import com.example.cms.diagnostics.DatabaseOperationEvent;
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.diagnostics.LatencyHistogram;
+
+// Times one database operation in three phases: pool checkout (start -> connected), statement
+// execution (connected -> executed) and row mapping (executed -> close). Open it before the
+// connection in the same try-with-resources so close() runs after the connection is returned:
+//
+//   try (DbOperation op = DbOperation.start("db.roster.load", sql);
+//        Connection conn = op.connected(connect()); ...) {
+//
+// Every operation is recorded in its Diagnostics histogram, and in db.connect for the checkout;
+// a DatabaseOperationEvent is committed only while a flight recording has the event enabled.
+final class DbOperation implements AutoCloseable {
+
+    private static final LatencyHistogram CONNECT = Diagnostics.histogram("db.connect");
+
+    private final String operation;
+    private final String sql;
+    private final LatencyHistogram histogram;
+    private final DatabaseOperationEvent event = new DatabaseOperationEvent();
+    private final long started;
+    private long connected;
+    private long executed;
+    private long rows = -1;
+    private boolean succeeded = false;
+
+    private DbOperation(String operation, String sql) {
+        this.operation = operation;
+        this.sql = sql;
+        this.histogram = Diagnostics.histogram(operation);
+        event.begin();
+        this.started = System.nanoTime();
+    }
+
+    static DbOperation start(String operation, String sql) {
+        return new DbOperation(operation, sql);
+    }
+
+    <C> C connected(C connection) {
+        connected = System.nanoTime();
+        CONNECT.record(connected - started);
+        return connection;
+    }
+
+    void executed() {
+        executed = System.nanoTime();
+    }
+
+    // Wraps the call that runs the statement: op.executed(pstmt.executeQuery())
+    <R> R executed(R result) {
+        executed();
+        return result;
+    }
+
+    // Marks the operation as successful; a close() without it is reported as failed
+    void rows(long count) {
+        rows = count;
+        succeeded = true;
+    }
+
+    @Override
+    public void close() {
+        long finished = System.nanoTime();
+        histogram.record(finished - started);
+        event.end();
+        if (event.shouldCommit()) {
+            long connectedAt = connected == 0 ? started : connected;
+            long executedAt = executed == 0 ? finished : executed;
+            event.operation = operation;
+            event.sql = sql;
+            event.rows = rows;
+            event.connectTime = connectedAt - started;
+            event.executeTime = executedAt - connectedAt;
+            event.mapTime = finished - executedAt;
+            event.failed = !succeeded;
+            event.commit();
+        }
+    }
+}
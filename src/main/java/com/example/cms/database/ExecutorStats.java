@@ -0,0 +1,16 @@
+package com.example.cms.database;
+
+public record ExecutorStats(
+        int maxConcurrency,
+        int running,
+        int waiting,
+        long completed,
+        long cancelled
+) {
+
+    @Override
+    public String toString() {
+        return String.format("executor[max=%d, running=%d, waiting=%d, completed=%d, cancelled=%d]",
+                maxConcurrency, running, waiting, completed, cancelled);
+    }
+}
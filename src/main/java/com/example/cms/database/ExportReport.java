@@ -0,0 +1,18 @@
+package com.example.cms.database;
+
+public record ExportReport(long rows, long bytes, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public double megabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes / (1024.0 * 1024.0) * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows, %d bytes written in %.1f ms (%.0f rows/s, %.2f MB/s)",
+                rows, bytes, elapsedNanos / 1_000_000.0, rowsPerSecond(), megabytesPerSecond());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.cms.database;
+
+import com.example.cms.models.Student;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Number of students per faculty, department and group. Missing values are counted under "".
+// Each map is ordered by count, largest first. Instances are immutable; withAdded and withRemoved
+// return adjusted copies so a breakdown can follow edits without recounting the roster.
+public record FacetCounts(
+        long total,
+        Map<String, Long> faculties,
+        Map<String, Long> departments,
+        Map<String, Long> groups
+) {
+
+    public static final FacetCounts EMPTY = new FacetCounts(0, Map.of(), Map.of(), Map.of());
+
+    public FacetCounts {
+        faculties = sorted(faculties);
+        departments = sorted(departments);
+        groups = sorted(groups);
+    }
+
+    // Counts rows that are already in memory, e.g. search results or a loaded roster
+    public static FacetCounts of(Collection<? extends Student> students) {
+        Map<String, Long> faculties = new HashMap<>();
+        Map<String, Long> departments = new HashMap<>();
+        Map<String, Long> groups = new HashMap<>();
+        long total = 0;
+        for (Student s : students) {
+            if (s == null) {
+                continue;
+            }
+            total++;
+            faculties.merge(valueOf(s.getFaculty()), 1L, Long::sum);
+            departments.merge(valueOf(s.getDepartment()), 1L, Long::sum);
+            groups.merge(valueOf(s.getGroup()), 1L, Long::sum);
+        }
+        return new FacetCounts(total, faculties, departments, groups);
+    }
+
+    public FacetCounts withAdded(Student student) {
+        return adjust(student, 1);
+    }
+
+    public FacetCounts withRemoved(Student student) {
+        return adjust(student, -1);
+    }
+
+    private FacetCounts adjust(Student s, long delta) {
+        return new FacetCounts(Math.max(0, total + delta),
+                adjust(faculties, valueOf(s.getFaculty()), delta),
+                adjust(departments, valueOf(s.getDepartment()), delta),
+                adjust(groups, valueOf(s.getGroup()), delta));
+    }
+
+    private static Map<String, Long> adjust(Map<String, Long> counts, String value, long delta) {
+        Map<String, Long> copy = new HashMap<>(counts);
+        copy.compute(value, (key, count) -> {
+            long updated = (count == null ? 0 : count) + delta;
+            return updated > 0 ? updated : null;
+        });
+        return copy;
+    }
+
+    private static Map<String, Long> sorted(Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : entries) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String valueOf(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.cms.database;
+
+public record ImportProgress(long rowsRead, long inserted, long bytesRead, long totalBytes) {
+
+    // Fraction of the input consumed so far, or -1 when the total size is unknown
+    public double fraction() {
+        return totalBytes <= 0 ? -1 : Math.min(1.0, (double) bytesRead / totalBytes);
+    }
+}
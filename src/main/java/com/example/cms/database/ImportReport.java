@@ -0,0 +1,31 @@
+package com.example.cms.database;
+
+import java.util.List;
+
+public record ImportReport(
+        long rowsRead,
+        long inserted,
+        long duplicates,
+        long failed,
+        List<RowError> errors,
+        long elapsedNanos
+) {
+
+    public record RowError(long line, String message) {
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows read: %d inserted, %d duplicates skipped, %d rejected (%.0f rows/s)",
+                rowsRead, inserted, duplicates, failed, rowsPerSecond());
+    }
+}
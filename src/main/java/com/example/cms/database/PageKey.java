@@ -0,0 +1,11 @@
+package com.example.cms.database;
+
+import com.example.cms.models.Student;
+
+// Keyset cursor: the sort key and student id of the last row of a page
+public record PageKey(Object sortValue, int studentId) {
+
+    public static PageKey of(StudentSort sort, Student student) {
+        return new PageKey(sort.keyOf(student), student.getId());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.cms.database;
+
+public record PoolConfig(
+        String url,
+        int maxSize,
+        long checkoutTimeoutMillis,
+        long mmapSizeBytes,
+        int cacheSizeKib,
+        int statementCacheSize,
+        long busyTimeoutMillis
+) {
+
+    public static final int DEFAULT_MAX_SIZE = 4;
+    public static final long DEFAULT_CHECKOUT_TIMEOUT_MILLIS = 30_000;
+    public static final long DEFAULT_MMAP_SIZE_BYTES = 256L * 1024 * 1024;
+    public static final int DEFAULT_CACHE_SIZE_KIB = 16 * 1024;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+    public static final long DEFAULT_BUSY_TIMEOUT_MILLIS = 5_000;
+
+    public PoolConfig {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("Database URL is required");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        if (checkoutTimeoutMillis < 0 || mmapSizeBytes < 0 || cacheSizeKib < 0 || statementCacheSize < 0 || busyTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Pool settings must not be negative");
+        }
+    }
+
+    // Every setting can be overridden with -Dcms.db.<name>=... on the command line
+    public static PoolConfig fromSystemProperties(String defaultUrl) {
+        return new PoolConfig(
+                System.getProperty("cms.db.url", defaultUrl),
+                Integer.getInteger("cms.db.poolSize", DEFAULT_MAX_SIZE),
+                Long.getLong("cms.db.checkoutTimeoutMillis", DEFAULT_CHECKOUT_TIMEOUT_MILLIS),
+                Long.getLong("cms.db.mmapSize", DEFAULT_MMAP_SIZE_BYTES),
+                Integer.getInteger("cms.db.cacheSizeKib", DEFAULT_CACHE_SIZE_KIB),
+                Integer.getInteger("cms.db.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE),
+                Long.getLong("cms.db.busyTimeoutMillis", DEFAULT_BUSY_TIMEOUT_MILLIS)
+        );
+    }
+}
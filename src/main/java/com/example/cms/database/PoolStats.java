@@ -0,0 +1,27 @@
+package com.example.cms.database;
+
+public record PoolStats(
+        int maxSize,
+        int active,
+        int idle,
+        long checkouts,
+        long timeouts,
+        double averageWaitMillis,
+        double maxWaitMillis,
+        long statementCacheHits,
+        long statementCacheMisses
+) {
+
+    public double statementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0 : (double) statementCacheHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("pool[max=%d, active=%d, idle=%d, checkouts=%d, timeouts=%d, avgWait=%.3fms, maxWait=%.3fms, "
+                        + "stmtCache=%d/%d hits (%.1f%%)]",
+                maxSize, active, idle, checkouts, timeouts, averageWaitMillis, maxWaitMillis,
+                statementCacheHits, statementCacheHits + statementCacheMisses, statementCacheHitRate() * 100);
+    }
+}
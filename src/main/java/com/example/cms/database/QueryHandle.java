@@ -0,0 +1,44 @@
+package com.example.cms.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Lets another thread abort a running query. cancel() marks the handle and, while the query's statement
+// is executing or its rows are being read, calls Statement.cancel(), which sqlite-jdbc turns into
+// sqlite3_interrupt on that connection; the query then fails with SQLITE_INTERRUPT.
+// The statement is only reachable between begin and end, so an interrupt never lands on a connection
+// that has already gone back to the pool.
+public final class QueryHandle {
+
+    private Statement statement;
+    private boolean cancelled = false;
+
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // The statement finished in the meantime
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    synchronized void begin(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query was cancelled");
+        }
+        this.statement = statement;
+    }
+
+    synchronized void end() {
+        statement = null;
+    }
+}
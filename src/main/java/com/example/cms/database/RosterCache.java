@@ -0,0 +1,132 @@
+package com.example.cms.database;
+
+import com.example.cms.models.Student;
+import com.example.cms.models.StudentStore;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Read-through cache of full rosters and search results, keyed by user and normalized query
+// ("" is the full roster). Bounded by entry count and by an estimate of the retained heap, evicting
+// the least recently used entries first. Every committed write drops all entries of its user.
+// Entries are held in columnar form (StudentStore); callers get fresh Student copies on every hit.
+final class RosterCache {
+
+    @FunctionalInterface
+    interface Loader {
+        List<Student> load() throws SQLException;
+    }
+
+    private record Key(int userId, String query) {
+    }
+
+    private record Entry(StudentStore rows, long weight) {
+    }
+
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation; a load only populates the cache if no write committed meanwhile
+    private final Map<Integer, Long> generations = new HashMap<>();
+    private long weight = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    RosterCache(int maxEntries, long maxWeightBytes) {
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    List<Student> get(int userId, String query, Loader loader) throws SQLException {
+        List<Student> cached = getIfPresent(userId, query);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generation(userId);
+        List<Student> rows = loader.load();
+        put(userId, query, generation, rows);
+        return rows;
+    }
+
+    List<Student> getIfPresent(int userId, String query) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(userId, normalize(query)));
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        return entry.rows().toStudents();
+    }
+
+    synchronized long generation(int userId) {
+        return generations.getOrDefault(userId, 0L);
+    }
+
+    void put(int userId, String query, long generation, List<Student> rows) {
+        if (maxEntries == 0 || generation != generation(userId)) {
+            return;
+        }
+        StudentStore store = StudentStore.of(rows);
+        long rowsWeight = store.estimatedBytes();
+        if (rowsWeight > maxWeightBytes) {
+            return;
+        }
+        synchronized (this) {
+            if (generation == generation(userId)) {
+                insert(new Key(userId, normalize(query)), new Entry(store, rowsWeight));
+            }
+        }
+    }
+
+    private void insert(Key key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+        weight += entry.weight();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeightBytes) && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void invalidateUser(int userId) {
+        generations.merge(userId, 1L, Long::sum);
+        invalidations++;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().userId() == userId) {
+                weight -= e.getValue().weight();
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized RosterCacheStats getStats() {
+        return new RosterCacheStats(entries.size(), weight, maxWeightBytes, hits, misses, evictions, invalidations);
+    }
+}
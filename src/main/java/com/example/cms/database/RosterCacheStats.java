@@ -0,0 +1,24 @@
+package com.example.cms.database;
+
+public record RosterCacheStats(
+        int entries,
+        long weightBytes,
+        long maxWeightBytes,
+        long hits,
+        long misses,
+        long evictions,
+        long invalidations
+) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rosterCache[entries=%d, weight=%.1f/%.1fMB, hits=%d/%d (%.1f%%), evictions=%d, invalidations=%d]",
+                entries, weightBytes / 1048576.0, maxWeightBytes / 1048576.0, hits, hits + misses, hitRate() * 100,
+                evictions, invalidations);
+    }
+}
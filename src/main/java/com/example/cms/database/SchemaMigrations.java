@@ -0,0 +1,161 @@
+package com.example.cms.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+// Versioned schema changes. PRAGMA user_version holds the number of the last applied migration;
+// each pending migration runs in its own transaction together with the version bump, so a failed
+// migration leaves the database at the previous version. Migrations are append-only: never edit
+// one that has shipped, add a new one instead.
+final class SchemaMigrations {
+
+    private record Migration(int version, String description, List<String> statements) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            // Statements use IF NOT EXISTS so that databases created before versioning upgrade cleanly
+            new Migration(1, "users and students tables", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        username TEXT NOT NULL UNIQUE,
+                        password TEXT NOT NULL
+                    );
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS students (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        student_id INTEGER NOT NULL,
+                        name TEXT NOT NULL,
+                        surname TEXT NOT NULL,
+                        faculty TEXT,
+                        department TEXT,
+                        student_group TEXT,
+                        user_id INTEGER,
+                        UNIQUE(student_id, user_id),
+                        FOREIGN KEY(user_id) REFERENCES users(id)
+                    );
+                    """
+            )),
+
+            // External-content FTS5 index over the searchable columns, kept in sync by triggers
+            new Migration(2, "full-text search index", List.of(
+                    """
+                    CREATE VIRTUAL TABLE IF NOT EXISTS students_fts USING fts5(
+                        student_id, name, surname, faculty, department, student_group,
+                        content='students', content_rowid='id', tokenize='trigram'
+                    );
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS students_fts_ai AFTER INSERT ON students BEGIN
+                        INSERT INTO students_fts(rowid, student_id, name, surname, faculty, department, student_group)
+                        VALUES (new.id, new.student_id, new.name, new.surname, new.faculty, new.department, new.student_group);
+                    END;
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS students_fts_ad AFTER DELETE ON students BEGIN
+                        INSERT INTO students_fts(students_fts, rowid, student_id, name, surname, faculty, department, student_group)
+                        VALUES ('delete', old.id, old.student_id, old.name, old.surname, old.faculty, old.department, old.student_group);
+                    END;
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS students_fts_au AFTER UPDATE ON students BEGIN
+                        INSERT INTO students_fts(students_fts, rowid, student_id, name, surname, faculty, department, student_group)
+                        VALUES ('delete', old.id, old.student_id, old.name, old.surname, old.faculty, old.department, old.student_group);
+                        INSERT INTO students_fts(rowid, student_id, name, surname, faculty, department, student_group)
+                        VALUES (new.id, new.student_id, new.name, new.surname, new.faculty, new.department, new.student_group);
+                    END;
+                    """,
+                    // Index rows that were inserted before the FTS table existed
+                    "INSERT INTO students_fts(students_fts) VALUES ('rebuild')"
+            )),
+
+            // UNIQUE(student_id, user_id) leads with student_id, so it cannot serve per-user scans.
+            // Each index below leads with user_id and ends with student_id, matching the keyset
+            // pagination order of StudentSort; the optional columns are indexed on the same
+            // COALESCE expression that StudentSort sorts and filters on.
+            new Migration(3, "per-user access path indexes", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_student ON students(user_id, student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_name ON students(user_id, name, student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_surname ON students(user_id, surname, student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_faculty ON students(user_id, COALESCE(faculty, ''), student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_department ON students(user_id, COALESCE(department, ''), student_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_group ON students(user_id, COALESCE(student_group, ''), student_id)"
+            )),
+
+            // Case-insensitive name and surname probes for structured queries (StudentQuery)
+            new Migration(4, "case-insensitive name indexes", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_name_nocase ON students(user_id, name COLLATE NOCASE)",
+                    "CREATE INDEX IF NOT EXISTS idx_students_user_surname_nocase ON students(user_id, surname COLLATE NOCASE)"
+            ))
+    );
+
+    // Caps the rows ANALYZE and PRAGMA optimize sample per index, keeping startup time flat
+    private static final int ANALYSIS_LIMIT = 1000;
+
+    private SchemaMigrations() {
+    }
+
+    static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Applies every pending migration and refreshes planner statistics; returns the number applied
+    static int migrate(Connection conn) throws SQLException {
+        int current = currentVersion(conn);
+        if (current > latestVersion()) {
+            throw new SQLException("Database schema version " + current
+                    + " is newer than this application supports (" + latestVersion() + ")");
+        }
+
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() > current) {
+                apply(conn, migration);
+                applied++;
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+            // New indexes have no statistics yet; otherwise let SQLite decide what is stale
+            stmt.execute(applied > 0 ? "ANALYZE" : "PRAGMA optimize");
+        }
+        return applied;
+    }
+
+    static void optimize(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+            stmt.execute("PRAGMA optimize");
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements()) {
+                stmt.execute(sql);
+            }
+            stmt.execute("PRAGMA user_version = " + migration.version());
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Migration " + migration.version() + " (" + migration.description()
+                    + ") failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.cms.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// LRU cache of prepared statements owned by a single physical connection.
+// Not thread-safe on its own: the pool guarantees a connection is used by one thread at a time.
+final class StatementCache {
+
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(int maxSize, LongAdder hits, LongAdder misses) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(Connection physical, String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.statement.isClosed()) {
+            statements.remove(sql);
+            cached = null;
+        }
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (cached != null || maxSize == 0) {
+            // The same SQL is already checked out on this connection (nested use), hand out a private copy
+            return statement;
+        }
+        cached = new CachedStatement(statement);
+        cached.inUse = true;
+        statements.put(sql, cached);
+        return cached.proxy;
+    }
+
+    void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    private static final class CachedStatement implements InvocationHandler {
+
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        // close() hands the statement back to the cache instead of finalizing it
+        private void release() throws SQLException {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !inUse || statement.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "CachedStatement[" + statement + "]";
+                }
+                default -> {
+                    if (!inUse) {
+                        throw new SQLException("Statement has already been returned to the cache");
+                    }
+                }
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                // When a step fails (e.g. an interrupted query) sqlite-jdbc closes the native statement but
+                // the Java object still reports itself open, so a failed statement is dropped, not reused
+                if (e.getCause() instanceof SQLException) {
+                    evicted = true;
+                }
+                throw e.getCause();
+            }
+        }
+    }
+}
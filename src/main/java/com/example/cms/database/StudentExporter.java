@@ -0,0 +1,196 @@
+package com.example.cms.database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+// Streams a user's roster from the ResultSet straight into a file channel. Columns are written as
+// they are read, no Student objects or intermediate lists are created, so memory use is constant.
+// The export is written to a temporary file next to the destination and only moved into place once
+// it is complete, so a failed export never leaves a truncated file that looks finished.
+public class StudentExporter {
+
+    public enum Format {
+        CSV,
+        JSON_LINES;
+
+        // *.jsonl / *.ndjson (optionally .gz) are JSON Lines, everything else is CSV
+        public static Format fromFileName(String fileName) {
+            String name = stripGzip(fileName.toLowerCase(Locale.ROOT));
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSON_LINES : CSV;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FETCH_SIZE = 1000;
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private static final String SQL = "SELECT student_id, name, surname, faculty, department, student_group FROM students WHERE user_id = ? ORDER BY student_id";
+    private static final String CSV_HEADER = "student_id,name,surname,faculty,department,group";
+
+    private final int userId;
+    private final LongConsumer progressListener;
+
+    public StudentExporter(int userId, LongConsumer progressListener) {
+        this.userId = userId;
+        this.progressListener = progressListener == null ? rows -> { } : progressListener;
+    }
+
+    // Format and compression are taken from the file name, e.g. roster.csv, roster.jsonl.gz
+    public ExportReport exportFile(Path file) throws IOException, SQLException {
+        String name = file.getFileName().toString();
+        return export(file, Format.fromFileName(name), name.toLowerCase(Locale.ROOT).endsWith(".gz"));
+    }
+
+    public ExportReport export(Path file, Format format, boolean gzip) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".part");
+        boolean moved = false;
+        try {
+            long rows = write(temp, format, gzip);
+            moveIntoPlace(temp, target);
+            moved = true;
+            progressListener.accept(rows);
+            return new ExportReport(rows, Files.size(target), System.nanoTime() - start);
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private long write(Path file, Format format, boolean gzip) throws IOException, SQLException {
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+                 DbOperation op = DbOperation.start("db.export", SQL);
+                 Connection conn = op.connected(Database.connect());
+                 PreparedStatement pstmt = conn.prepareStatement(SQL)) {
+                pstmt.setInt(1, userId);
+                pstmt.setFetchSize(FETCH_SIZE);
+
+                if (format == Format.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                try (ResultSet rs = op.executed(pstmt.executeQuery())) {
+                    while (rs.next()) {
+                        if (format == Format.CSV) {
+                            writeCsvRow(writer, rs);
+                        } else {
+                            writeJsonRow(writer, rs);
+                        }
+                        if (++rows % PROGRESS_INTERVAL == 0) {
+                            progressListener.accept(rows);
+                        }
+                    }
+                }
+                op.rows(rows);
+            }
+        }
+        return rows;
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeCsvRow(Writer w, ResultSet rs) throws IOException, SQLException {
+        w.write(Integer.toString(rs.getInt(1)));
+        for (int column = 2; column <= 6; column++) {
+            w.write(',');
+            writeCsvField(w, rs.getString(column));
+        }
+        w.write('\n');
+    }
+
+    private static void writeCsvField(Writer w, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private static void writeJsonRow(Writer w, ResultSet rs) throws IOException, SQLException {
+        w.write("{\"student_id\":");
+        w.write(Integer.toString(rs.getInt(1)));
+        writeJsonField(w, "name", rs.getString(2));
+        writeJsonField(w, "surname", rs.getString(3));
+        writeJsonField(w, "faculty", rs.getString(4));
+        writeJsonField(w, "department", rs.getString(5));
+        writeJsonField(w, "group", rs.getString(6));
+        w.write("}\n");
+    }
+
+    private static void writeJsonField(Writer w, String name, String value) throws IOException {
+        w.write(",\"");
+        w.write(name);
+        w.write("\":");
+        if (value == null) {
+            w.write("null");
+            return;
+        }
+        w.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> w.write("\\\"");
+                case '\\' -> w.write("\\\\");
+                case '\n' -> w.write("\\n");
+                case '\r' -> w.write("\\r");
+                case '\t' -> w.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        w.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        w.write(c);
+                    }
+                }
+            }
+        }
+        w.write('"');
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+}
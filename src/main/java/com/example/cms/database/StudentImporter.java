@@ -0,0 +1,276 @@
+package com.example.cms.database;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Bulk CSV/TSV import: rows are streamed from the file, inserted with JDBC batches and committed
+// once per chunk. Each chunk is one write on the writer thread, so an import never competes with
+// other writes for SQLite's lock. Rows whose student id already exists are skipped by ON CONFLICT
+// rather than checked up front. Invalid rows are reported with their line number and do not stop the import.
+public class StudentImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int SURNAME = 2;
+    private static final int FACULTY = 3;
+    private static final int DEPARTMENT = 4;
+    private static final int GROUP = 5;
+
+    private static final String INSERT_SQL = "INSERT INTO students(student_id, name, surname, faculty, department, student_group, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT(student_id, user_id) DO NOTHING";
+
+    private record Row(int id, String name, String surname, String faculty, String department, String group) {
+    }
+
+    private final int userId;
+    private final int chunkSize;
+    private final Consumer<ImportProgress> progressListener;
+
+    private long rowsRead;
+    private long inserted;
+    private long duplicates;
+    private long failed;
+    private List<ImportReport.RowError> errors;
+
+    public StudentImporter(int userId, int chunkSize, Consumer<ImportProgress> progressListener) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.userId = userId;
+        this.chunkSize = chunkSize;
+        this.progressListener = progressListener == null ? p -> { } : progressListener;
+    }
+
+    // Files ending in .tsv are tab separated, everything else is read as CSV
+    public ImportReport importFile(Path file) throws IOException, SQLException {
+        char delimiter = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".tsv") ? '\t' : ',';
+        long totalBytes = Files.size(file);
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return importFrom(reader, delimiter, in::getCount, totalBytes);
+        }
+    }
+
+    public ImportReport importFrom(Reader reader, char delimiter) throws IOException, SQLException {
+        return importFrom(reader, delimiter, () -> 0, -1);
+    }
+
+    private ImportReport importFrom(Reader reader, char delimiter, LongSupplier bytesRead, long totalBytes)
+            throws IOException, SQLException {
+        rowsRead = 0;
+        inserted = 0;
+        duplicates = 0;
+        failed = 0;
+        errors = new ArrayList<>();
+        long start = System.nanoTime();
+
+        DelimitedReader records = new DelimitedReader(reader, delimiter);
+        List<String> record = records.next();
+        if (record != null && record.get(0).startsWith("\uFEFF")) {
+            record.set(0, record.get(0).substring(1));
+        }
+        int[] columns = defaultColumns();
+        if (record != null && isHeader(record)) {
+            columns = columnsFromHeader(record);
+            record = records.next();
+        }
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long[] chunkLines = new long[chunkSize];
+        for (; record != null; record = records.next()) {
+            rowsRead++;
+            long line = records.getRecordLine();
+            String error = parse(record, columns, chunk);
+            if (error != null) {
+                failed++;
+                addError(line, error);
+                continue;
+            }
+
+            chunkLines[chunk.size() - 1] = line;
+            if (chunk.size() == chunkSize) {
+                flush(chunk, chunkLines);
+                chunk.clear();
+                progressListener.accept(new ImportProgress(rowsRead, inserted, bytesRead.getAsLong(), totalBytes));
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            flush(chunk, chunkLines);
+        }
+        progressListener.accept(new ImportProgress(rowsRead, inserted, bytesRead.getAsLong(), totalBytes));
+
+        return new ImportReport(rowsRead, inserted, duplicates, failed, List.copyOf(errors), System.nanoTime() - start);
+    }
+
+    private void flush(List<Row> chunk, long[] lines) throws SQLException {
+        int count = chunk.size();
+        int[][] results = new int[1][];
+        try {
+            // The writer commits the chunk (with whatever else is queued) before write() returns
+            Database.write(conn -> {
+                results[0] = insertChunk(conn, chunk);
+                return count;
+            });
+        } catch (SQLException e) {
+            throw new SQLException("Import stopped at line " + lines[0] + ": " + e.getMessage()
+                    + " (" + inserted + " rows were already committed)", e);
+        }
+
+        Database.invalidateRosters(userId);
+        for (int i = 0; i < count; i++) {
+            // ON CONFLICT DO NOTHING reports zero changed rows for a duplicate
+            if (i < results[0].length && results[0][i] == 0) {
+                duplicates++;
+                addError(lines[i], "Student with ID " + chunk.get(i).id() + " already exists, skipped");
+            } else {
+                inserted++;
+            }
+        }
+    }
+
+    private int[] insertChunk(Connection conn, List<Row> chunk) throws SQLException {
+        try (DbOperation op = DbOperation.start("db.import.chunk", INSERT_SQL);
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Row row : chunk) {
+                pstmt.setInt(1, row.id());
+                pstmt.setString(2, row.name());
+                pstmt.setString(3, row.surname());
+                pstmt.setString(4, Database.nullIfEmpty(row.faculty()));
+                pstmt.setString(5, Database.nullIfEmpty(row.department()));
+                pstmt.setString(6, Database.nullIfEmpty(row.group()));
+                pstmt.setInt(7, userId);
+                pstmt.addBatch();
+            }
+            int[] results = op.executed(pstmt.executeBatch());
+            op.rows(chunk.size());
+            return results;
+        }
+    }
+
+    // Adds the record to the chunk, or returns why it is invalid
+    private String parse(List<String> record, int[] columns, List<Row> chunk) {
+        String idText = field(record, columns[ID]);
+        String name = field(record, columns[NAME]);
+        String surname = field(record, columns[SURNAME]);
+        String faculty = field(record, columns[FACULTY]);
+        String department = field(record, columns[DEPARTMENT]);
+        String group = field(record, columns[GROUP]);
+
+        if (idText.isEmpty() || name.isEmpty() || surname.isEmpty()) {
+            return "Student ID, Name and Surname are required fields";
+        }
+        int id;
+        try {
+            id = Integer.parseInt(idText);
+        } catch (NumberFormatException e) {
+            return "Student ID must be a valid number: " + idText;
+        }
+        if (id <= 0) {
+            return "Student ID must be a positive number";
+        }
+        for (String value : new String[]{name, surname, faculty, department, group}) {
+            if (value.length() > MAX_FIELD_LENGTH) {
+                return "Field is longer than " + MAX_FIELD_LENGTH + " characters";
+            }
+        }
+
+        chunk.add(new Row(id, name, surname, faculty, department, group));
+        return null;
+    }
+
+    private void addError(long line, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportReport.RowError(line, message));
+        }
+    }
+
+    private static String field(List<String> record, int column) {
+        return column >= 0 && column < record.size() ? record.get(column).trim() : "";
+    }
+
+    private static int[] defaultColumns() {
+        return new int[]{0, 1, 2, 3, 4, 5};
+    }
+
+    // A first row whose first field is not a number is treated as a header
+    private static boolean isHeader(List<String> record) {
+        try {
+            Integer.parseInt(record.get(0).trim());
+            return false;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static int[] columnsFromHeader(List<String> header) throws IOException {
+        int[] columns = new int[6];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace(" ", "").replace("_", "");
+            switch (name) {
+                case "id", "studentid" -> columns[ID] = i;
+                case "name", "firstname" -> columns[NAME] = i;
+                case "surname", "lastname" -> columns[SURNAME] = i;
+                case "faculty" -> columns[FACULTY] = i;
+                case "department" -> columns[DEPARTMENT] = i;
+                case "group", "studentgroup" -> columns[GROUP] = i;
+                default -> { }
+            }
+        }
+        if (columns[ID] < 0 || columns[NAME] < 0 || columns[SURNAME] < 0) {
+            throw new IOException("Header must contain ID, Name and Surname columns");
+        }
+        return columns;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.cms.database;
+
+import com.example.cms.models.Student;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Cold publisher that streams rows straight from the ResultSet: every subscription runs the query
+// again, and rows are only read from SQLite while the subscriber has outstanding demand.
+// The pooled connection (and its read snapshot) is held until the stream completes or is cancelled.
+// Only the drain that opens the query runs on the executor; once the stream owns a connection its later
+// drains run on their own virtual thread. Waiting for an executor permit while holding a connection
+// would deadlock as soon as every connection belongs to a stream and every permit to a task waiting
+// for a connection.
+// A subscriber that throws from onNext cancels the stream and is sent onError with that exception.
+// A publisher can also replay an in-memory list (e.g. a cached roster) with the same backpressure.
+// Query streams are timed as "db.stream"; the duration includes time spent waiting for demand.
+public class StudentPublisher implements Flow.Publisher<Student> {
+
+    @FunctionalInterface
+    public interface StatementBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    private final String sql;
+    private final StatementBinder binder;
+    private final List<Student> rows;
+    private final Executor executor;
+    // Receives every row of a stream that ran to completion, null if nobody needs them
+    private final Consumer<List<Student>> completionListener;
+
+    public StudentPublisher(String sql, StatementBinder binder, Executor executor,
+                            Consumer<List<Student>> completionListener) {
+        this.sql = sql;
+        this.binder = binder;
+        this.rows = null;
+        this.executor = executor;
+        this.completionListener = completionListener;
+    }
+
+    public StudentPublisher(List<Student> rows, Executor executor) {
+        this.sql = null;
+        this.binder = null;
+        this.rows = rows;
+        this.executor = executor;
+        this.completionListener = null;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Student> subscriber) {
+        StudentSubscription subscription = new StudentSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class StudentSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Student> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Serializes drain runs: only the caller that moves it from 0 schedules a drain
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest;
+        private volatile boolean connected = false;
+
+        private Connection conn;
+        private PreparedStatement pstmt;
+        private ResultSet rs;
+        private Iterator<Student> iterator;
+        private DbOperation op;
+        private long count = 0;
+        private List<Student> emitted;
+        private boolean opened = false;
+        private boolean done = false;
+
+        private StudentSubscription(Flow.Subscriber<? super Student> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " rows, demand must be positive");
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                if (connected) {
+                    Thread.ofVirtual().name("cms-db-stream").start(this::drain);
+                } else {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                drainOnce();
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drainOnce() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                succeed();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            try {
+                if (!opened) {
+                    open();
+                }
+                while (demand.get() > 0 && !cancelled) {
+                    Student student = nextRow();
+                    if (student == null) {
+                        succeed();
+                        if (completionListener != null) {
+                            completionListener.accept(emitted);
+                        }
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (emitted != null) {
+                        emitted.add(student);
+                    }
+                    demand.decrementAndGet();
+                    count++;
+                    subscriber.onNext(student);
+                }
+                if (cancelled) {
+                    succeed();
+                }
+            } catch (SQLException e) {
+                finish();
+                subscriber.onError(e);
+            } catch (RuntimeException | Error e) {
+                // Thrown by the subscriber or the completion listener
+                boolean terminated = done;
+                cancelled = true;
+                finish();
+                if (!terminated) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void open() throws SQLException {
+            opened = true;
+            if (completionListener != null) {
+                emitted = new ArrayList<>();
+            }
+            if (rows != null) {
+                iterator = rows.iterator();
+                return;
+            }
+            op = DbOperation.start("db.stream", sql);
+            conn = op.connected(Database.connect());
+            pstmt = conn.prepareStatement(sql);
+            binder.bind(pstmt);
+            rs = op.executed(pstmt.executeQuery());
+            connected = true;
+        }
+
+        private Student nextRow() throws SQLException {
+            if (iterator != null) {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+            return rs.next() ? Database.mapStudent(rs) : null;
+        }
+
+        // Completed or cancelled: either way the rows read so far were delivered
+        private void succeed() {
+            if (op != null) {
+                op.rows(count);
+            }
+            finish();
+        }
+
+        private void finish() {
+            done = true;
+            closeQuietly(rs);
+            closeQuietly(pstmt);
+            closeQuietly(conn);
+            closeQuietly(op);
+        }
+
+        private void closeQuietly(AutoCloseable resource) {
+            if (resource == null) {
+                return;
+            }
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
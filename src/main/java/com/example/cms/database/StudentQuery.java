@@ -0,0 +1,277 @@
+package com.example.cms.database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Structured search over the students table. Terms are separated by whitespace:
+//   id:42  id:100..200  id:100..  id:..50    student id equality or range
+//   name:ann  name:ann*  surname:...          case-insensitive exact or prefix match
+//   faculty:Arts  department:...  group:CS-2*  exact or prefix match on the stored value
+//   department:"Applied Maths"                quotes allow spaces (and a literal '*')
+//   anything else                             full-text term, as typed in the search box
+// Repeated terms on the same field are ORed, everything else is ANDed.
+// Every field term compiles to an equality or range probe on one of the per-user indexes. The SQL
+// depends only on the shape of the query (fields, operators, term counts), so it is built once per
+// shape and its prepared statement is reused from the connection's statement cache.
+public final class StudentQuery {
+
+    public enum Field { ID, NAME, SURNAME, FACULTY, DEPARTMENT, GROUP, TEXT }
+
+    private enum Op { EQUALS, PREFIX, BETWEEN, AT_LEAST, AT_MOST, MATCH, SCAN }
+
+    private record Term(Field field, Op op, Object value, Object upper) {
+    }
+
+    record Compiled(String sql, List<Object> params) {
+    }
+
+    private static final String SELECT = "SELECT student_id, name, surname, faculty, department, student_group " +
+            "FROM students WHERE user_id = ?";
+    private static final int MAX_CACHED_SHAPES = 256;
+    private static final Map<String, String> SQL_BY_SHAPE = new ConcurrentHashMap<>();
+
+    private final List<Term> terms;
+
+    private StudentQuery(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    // True if the text contains at least one field:value term
+    public static boolean isStructured(String text) {
+        for (String token : tokenize(text)) {
+            int colon = token.indexOf(':');
+            if (colon > 0 && fieldOf(token.substring(0, colon)) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static StudentQuery parse(String text) {
+        List<Term> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            int colon = token.indexOf(':');
+            Field field = colon > 0 ? fieldOf(token.substring(0, colon)) : null;
+            if (field == null) {
+                terms.add(textTerm(unquote(token)));
+            } else if (field == Field.ID) {
+                terms.add(idTerm(token.substring(colon + 1)));
+            } else {
+                terms.add(valueTerm(field, token.substring(colon + 1)));
+            }
+        }
+        // Canonical order: grouped by field, so equal shapes always produce the same SQL text
+        terms.sort(Comparator.comparing(Term::field));
+        return new StudentQuery(List.copyOf(terms));
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    Compiled compile(int userId) {
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        for (Term term : terms) {
+            params.add(term.value());
+            if (term.upper() != null) {
+                params.add(term.upper());
+            }
+            if (term.op() == Op.SCAN) {
+                // One LIKE pattern per searched column
+                for (int i = 1; i < 6; i++) {
+                    params.add(term.value());
+                }
+            }
+        }
+
+        String shape = shape();
+        String sql = SQL_BY_SHAPE.get(shape);
+        if (sql == null) {
+            if (SQL_BY_SHAPE.size() >= MAX_CACHED_SHAPES) {
+                SQL_BY_SHAPE.clear();
+            }
+            sql = buildSql();
+            SQL_BY_SHAPE.put(shape, sql);
+        }
+        return new Compiled(sql, params);
+    }
+
+    private String shape() {
+        StringBuilder sb = new StringBuilder();
+        for (Term term : terms) {
+            sb.append(term.field()).append(':').append(term.op()).append(';');
+        }
+        return sb.toString();
+    }
+
+    private String buildSql() {
+        StringBuilder sql = new StringBuilder(SELECT);
+        Field open = null;
+        for (Term term : terms) {
+            if (term.field() == Field.TEXT) {
+                // Every full-text term must match on its own
+                if (open != null) {
+                    sql.append(')');
+                    open = null;
+                }
+                sql.append(" AND ").append(predicate(term));
+            } else if (term.field() == open) {
+                sql.append(" OR ").append(predicate(term));
+            } else {
+                if (open != null) {
+                    sql.append(')');
+                }
+                sql.append(" AND (").append(predicate(term));
+                open = term.field();
+            }
+        }
+        if (open != null) {
+            sql.append(')');
+        }
+        return sql.append(" ORDER BY student_id").toString();
+    }
+
+    private static String predicate(Term term) {
+        String column = switch (term.field()) {
+            case ID -> "student_id";
+            case NAME -> "name";
+            case SURNAME -> "surname";
+            case FACULTY -> "COALESCE(faculty, '')";
+            case DEPARTMENT -> "COALESCE(department, '')";
+            case GROUP -> "COALESCE(student_group, '')";
+            case TEXT -> null;
+        };
+        // Names compare case-insensitively, matching the NOCASE name indexes
+        String collate = term.field() == Field.NAME || term.field() == Field.SURNAME ? " COLLATE NOCASE" : "";
+        return switch (term.op()) {
+            case EQUALS -> column + " = ?" + collate;
+            case PREFIX -> "(" + column + " >= ?" + collate + " AND " + column + " < ?" + collate + ")";
+            case BETWEEN -> column + " BETWEEN ? AND ?";
+            case AT_LEAST -> column + " >= ?";
+            case AT_MOST -> column + " <= ?";
+            case MATCH -> "id IN (SELECT rowid FROM students_fts WHERE students_fts MATCH ?)";
+            case SCAN -> "(LOWER(CAST(student_id AS TEXT)) LIKE ? OR LOWER(name) LIKE ? OR LOWER(surname) LIKE ? "
+                    + "OR LOWER(COALESCE(faculty, '')) LIKE ? OR LOWER(COALESCE(department, '')) LIKE ? "
+                    + "OR LOWER(COALESCE(student_group, '')) LIKE ?)";
+        };
+    }
+
+    private static Term textTerm(String text) {
+        if (Database.isFtsSearchable(text)) {
+            return new Term(Field.TEXT, Op.MATCH, Database.toMatchExpression(text), null);
+        }
+        return new Term(Field.TEXT, Op.SCAN, Database.toLikePattern(text), null);
+    }
+
+    private static Term idTerm(String raw) {
+        String value = unquote(raw);
+        try {
+            int range = value.indexOf("..");
+            if (range < 0) {
+                return new Term(Field.ID, Op.EQUALS, Integer.parseInt(value), null);
+            }
+            String from = value.substring(0, range);
+            String to = value.substring(range + 2);
+            if (from.isEmpty() && to.isEmpty()) {
+                throw new IllegalArgumentException("Student id range needs at least one bound: id:" + value);
+            }
+            if (from.isEmpty()) {
+                return new Term(Field.ID, Op.AT_MOST, Integer.parseInt(to), null);
+            }
+            if (to.isEmpty()) {
+                return new Term(Field.ID, Op.AT_LEAST, Integer.parseInt(from), null);
+            }
+            return new Term(Field.ID, Op.BETWEEN, Integer.parseInt(from), Integer.parseInt(to));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Student id must be a number or a range like 100..200: id:" + value);
+        }
+    }
+
+    private static Term valueTerm(Field field, String raw) {
+        boolean quoted = raw.startsWith("\"");
+        String value = unquote(raw);
+        if (!quoted && value.endsWith("*") && value.length() > 1) {
+            String prefix = value.substring(0, value.length() - 1);
+            if (field == Field.NAME || field == Field.SURNAME) {
+                // NOCASE compares ASCII letters as lower case, so the bounds must be lower case too:
+                // the bound of "Z" would be "[", which sorts below every "z..." under NOCASE
+                prefix = asciiLowerCase(prefix);
+            }
+            String upper = upperBound(prefix);
+            if (upper != null) {
+                return new Term(field, Op.PREFIX, prefix, upper);
+            }
+        }
+        return new Term(field, Op.EQUALS, value, null);
+    }
+
+    // Smallest string greater than every string that starts with the prefix
+    private static String upperBound(String prefix) {
+        char last = prefix.charAt(prefix.length() - 1);
+        if (last == Character.MAX_VALUE) {
+            return null;
+        }
+        return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+    }
+
+    // What NOCASE folds: A-Z only, unlike String.toLowerCase
+    private static String asciiLowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
+    private static Field fieldOf(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "id", "studentid" -> Field.ID;
+            case "name", "firstname" -> Field.NAME;
+            case "surname", "lastname" -> Field.SURNAME;
+            case "faculty" -> Field.FACULTY;
+            case "department", "dept" -> Field.DEPARTMENT;
+            case "group", "studentgroup" -> Field.GROUP;
+            default -> null;
+        };
+    }
+
+    private static String unquote(String value) {
+        if (value.startsWith("\"")) {
+            int end = value.endsWith("\"") && value.length() > 1 ? value.length() - 1 : value.length();
+            return value.substring(1, end);
+        }
+        return value;
+    }
+
+    // Splits on whitespace outside double quotes; quotes are kept for the term parser
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                token.append(c);
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (!token.isEmpty()) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
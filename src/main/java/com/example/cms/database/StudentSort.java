@@ -0,0 +1,49 @@
+package com.example.cms.database;
+
+import com.example.cms.models.Student;
+
+// Sort orders that can be pushed down to SQL. student_id is always the tie-breaker,
+// so (sort key, student_id) is unique per user and usable as a keyset cursor.
+public enum StudentSort {
+    ID("student_id"),
+    NAME("name"),
+    SURNAME("surname"),
+    FACULTY("COALESCE(faculty, '')"),
+    DEPARTMENT("COALESCE(department, '')"),
+    GROUP("COALESCE(student_group, '')");
+
+    private final String expression;
+
+    StudentSort(String expression) {
+        this.expression = expression;
+    }
+
+    String expression() {
+        return expression;
+    }
+
+    public Object keyOf(Student student) {
+        return switch (this) {
+            case ID -> student.getId();
+            case NAME -> student.getName();
+            case SURNAME -> student.getSurname();
+            case FACULTY -> student.getFaculty();
+            case DEPARTMENT -> student.getDepartment();
+            case GROUP -> student.getGroup();
+        };
+    }
+
+    String orderBy(boolean ascending) {
+        String direction = ascending ? " ASC" : " DESC";
+        return this == ID
+                ? "student_id" + direction
+                : expression + direction + ", student_id" + direction;
+    }
+
+    String after(boolean ascending) {
+        String op = ascending ? " > " : " < ";
+        return this == ID
+                ? "student_id" + op + "?"
+                : "(" + expression + ", student_id)" + op + "(?, ?)";
+    }
+}
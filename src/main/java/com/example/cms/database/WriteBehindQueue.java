@@ -0,0 +1,405 @@
+package com.example.cms.database;
+
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.diagnostics.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Write-behind queue with group commit. Writes are applied in submission order by a single writer
+// thread; everything that arrives within the commit window (or up to maxBatch writes) shares one
+// transaction, and each write's future completes only after that transaction has committed.
+// A failing write (SQLException or unchecked exception) is rolled back to its own savepoint and does
+// not affect the rest of the batch; nothing a write throws stops the writer thread.
+// The writer owns a dedicated connection, so every write in the application is serialized through it
+// and the pool is left entirely to readers on their WAL snapshots. If the batch cannot get SQLite's
+// write lock (SQLITE_BUSY / SQLITE_LOCKED, e.g. from another process) it is rolled back and retried
+// as a whole with jittered backoff; only when the attempts run out do its writes fail, with an
+// SQLTransientException. The writer's connection runs with synchronous=FULL, so each batch costs
+// exactly one fsync of the WAL and a future is only completed once its write is durable.
+// Schema migrations and maintenance (ANALYZE, PRAGMA optimize) go through submitExclusive: they run
+// alone on the same connection, outside a batch transaction, and manage their own transactions.
+public class WriteBehindQueue implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Write {
+        int apply(Connection conn) throws SQLException;
+    }
+
+    private final ConnectionPool pool;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BusyRetry retry;
+    private final Thread writer;
+    // Only used by the writer thread; opened on the first batch and again after it breaks
+    private Connection connection;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    // Most recent queued write per key; only a coalescing write found here can absorb a newer one
+    private final Map<Object, Pending> latestByKey = new HashMap<>();
+    private boolean closed = false;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder busyFailures = new LongAdder();
+    private final LongAdder totalQueueDelayNanos = new LongAdder();
+    private final AtomicLong maxQueueDelayNanos = new AtomicLong();
+    // Per write: time queued before its batch started, and from submission until its future completed
+    private final LatencyHistogram queueDelay = Diagnostics.histogram("db.write.queue");
+    private final LatencyHistogram writeLatency = Diagnostics.histogram("db.write.total");
+    // Per retry: the jittered pause before the batch was attempted again
+    private final LatencyHistogram backoff = Diagnostics.histogram("db.write.backoff");
+
+    public WriteBehindQueue(ConnectionPool pool, long windowMicros, int maxBatch, BusyRetry retry) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.pool = pool;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+        this.retry = retry;
+        this.writer = new Thread(this::run, "cms-db-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public CompletableFuture<Integer> submit(Object key, Write write) {
+        return enqueue(key, false, false, write);
+    }
+
+    // Runs the write by itself in autocommit mode, after everything queued before it
+    public CompletableFuture<Integer> submitExclusive(Write write) {
+        return enqueue(null, false, true, write);
+    }
+
+    // A coalescing write replaces a queued coalescing write with the same key that has not been
+    // committed yet; both callers then share the result of the single write that is executed
+    public CompletableFuture<Integer> submitCoalescing(Object key, Write write) {
+        return enqueue(key, true, false, write);
+    }
+
+    public WriteQueueStats getStats() {
+        int pending;
+        synchronized (lock) {
+            pending = queue.size();
+        }
+        long done = committed.sum() + failed.sum();
+        return new WriteQueueStats(
+                submitted.sum(),
+                coalesced.sum(),
+                committed.sum(),
+                failed.sum(),
+                batches.sum(),
+                pending,
+                retries.sum(),
+                busyFailures.sum(),
+                done == 0 ? 0 : totalQueueDelayNanos.sum() / 1_000_000.0 / done,
+                maxQueueDelayNanos.get() / 1_000_000.0
+        );
+    }
+
+    // Stops accepting writes, commits whatever is still queued and waits for the writer to finish
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Integer> enqueue(Object key, boolean coalescing, boolean exclusive, Write write) {
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new SQLException("Write queue is closed"));
+            }
+            // Every write in the application depends on this thread; without it a write would wait forever
+            if (!writer.isAlive()) {
+                return CompletableFuture.failedFuture(new SQLException("Writer thread has stopped"));
+            }
+            submitted.increment();
+
+            if (coalescing && key != null) {
+                Pending latest = latestByKey.get(key);
+                if (latest != null && latest.coalescing) {
+                    latest.write = write;
+                    coalesced.increment();
+                    return latest.future;
+                }
+            }
+
+            Pending pending = new Pending(key, coalescing, exclusive, write);
+            queue.addLast(pending);
+            if (key != null) {
+                latestByKey.put(key, pending);
+            }
+            lock.notifyAll();
+            return pending.future;
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                List<Pending> batch;
+                try {
+                    batch = nextBatch();
+                } catch (InterruptedException e) {
+                    failRemaining(new SQLException("Writer thread was interrupted", e));
+                    return;
+                }
+                if (batch == null) {
+                    return;
+                }
+                try {
+                    commit(batch);
+                } catch (RuntimeException | Error e) {
+                    // Fail the batch rather than leave its callers waiting, and keep serving the queue
+                    fail(batch, new SQLException("Write batch failed: " + e, e));
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failRemaining(new SQLException("Writer thread failed: " + e, e));
+            throw e;
+        } finally {
+            closeConnection();
+        }
+    }
+
+    private List<Pending> nextBatch() throws InterruptedException {
+        synchronized (lock) {
+            while (queue.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                lock.wait();
+            }
+
+            // Give concurrent writers until the window closes to join this commit
+            long deadline = queue.peekFirst().enqueuedNanos + windowNanos;
+            long remaining;
+            while (!closed && queue.size() < maxBatch && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+
+            List<Pending> batch = new ArrayList<>(Math.min(queue.size(), maxBatch));
+            while (!queue.isEmpty() && batch.size() < maxBatch) {
+                // An exclusive write is a batch of its own
+                if (queue.peekFirst().exclusive && !batch.isEmpty()) {
+                    break;
+                }
+                Pending pending = queue.pollFirst();
+                if (pending.key != null && latestByKey.get(pending.key) == pending) {
+                    latestByKey.remove(pending.key);
+                }
+                batch.add(pending);
+                if (pending.exclusive) {
+                    break;
+                }
+            }
+            return batch;
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        long started = System.nanoTime();
+        for (Pending pending : batch) {
+            recordDelay(pending, started);
+        }
+        if (batch.get(0).exclusive) {
+            runExclusive(batch.get(0));
+            return;
+        }
+        int[] results = new int[batch.size()];
+        SQLException[] failures = new SQLException[batch.size()];
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                apply(batch, results, failures);
+                break;
+            } catch (SQLException e) {
+                if (!BusyRetry.isBusy(e) || attempt >= retry.maxAttempts()) {
+                    if (BusyRetry.isBusy(e)) {
+                        busyFailures.increment();
+                        e = new SQLTransientException("Database is busy, the write was not saved after "
+                                + attempt + " attempts", e);
+                    }
+                    fail(batch, e);
+                    return;
+                }
+                retries.increment();
+                long pause = retry.delayNanos(attempt);
+                backoff.record(pause);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    fail(batch, new SQLException("Writer thread was interrupted", interrupted));
+                    return;
+                }
+            }
+        }
+
+        batches.increment();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (failures[i] != null) {
+                failed.increment();
+                pending.future.completeExceptionally(failures[i]);
+            } else {
+                committed.increment();
+                pending.future.complete(results[i]);
+            }
+            writeLatency.record(System.nanoTime() - pending.enqueuedNanos);
+        }
+    }
+
+    // One attempt at the whole batch in one transaction. A write failing for its own reasons is rolled
+    // back to its savepoint; a lock error anywhere aborts the attempt so the batch can be retried.
+    private void apply(List<Pending> batch, int[] results, SQLException[] failures) throws SQLException {
+        Connection conn = connection();
+        try (DbOperation op = DbOperation.start("db.write.batch", "write batch")) {
+            conn.setAutoCommit(false);
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    failures[i] = null;
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        results[i] = batch.get(i).write.apply(conn);
+                        conn.releaseSavepoint(savepoint);
+                    } catch (SQLException e) {
+                        if (BusyRetry.isBusy(e)) {
+                            throw e;
+                        }
+                        conn.rollback(savepoint);
+                        failures[i] = e;
+                    } catch (RuntimeException e) {
+                        conn.rollback(savepoint);
+                        failures[i] = new SQLException("Write failed: " + e, e);
+                    }
+                }
+                conn.commit();
+                conn.setAutoCommit(true);
+            } catch (SQLException | RuntimeException e) {
+                abandon(conn);
+                throw e;
+            }
+            op.executed();
+            op.rows(batch.size());
+        }
+    }
+
+    private void runExclusive(Pending pending) {
+        batches.increment();
+        try {
+            int result = pending.write.apply(connection());
+            committed.increment();
+            pending.future.complete(result);
+        } catch (SQLException | RuntimeException e) {
+            failed.increment();
+            pending.future.completeExceptionally(e instanceof SQLException sqlException
+                    ? sqlException : new SQLException("Write failed: " + e, e));
+        }
+        writeLatency.record(System.nanoTime() - pending.enqueuedNanos);
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            Connection conn = pool.openDedicated();
+            // The pool's synchronous=NORMAL would let a WAL commit return before the fsync
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA synchronous=FULL");
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            connection = conn;
+        }
+        return connection;
+    }
+
+    // Rolls back a failed attempt; a connection that cannot even do that is replaced on the next one
+    private void abandon(Connection conn) {
+        try {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            closeConnection();
+        }
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+            connection = null;
+        }
+    }
+
+    private void fail(List<Pending> batch, SQLException cause) {
+        batches.increment();
+        for (Pending pending : batch) {
+            failed.increment();
+            pending.future.completeExceptionally(cause);
+            writeLatency.record(System.nanoTime() - pending.enqueuedNanos);
+        }
+    }
+
+    private void recordDelay(Pending pending, long started) {
+        long delay = started - pending.enqueuedNanos;
+        totalQueueDelayNanos.add(delay);
+        maxQueueDelayNanos.accumulateAndGet(delay, Math::max);
+        queueDelay.record(delay);
+    }
+
+    private void failRemaining(SQLException cause) {
+        synchronized (lock) {
+            closed = true;
+            for (Pending pending : queue) {
+                pending.future.completeExceptionally(cause);
+            }
+            queue.clear();
+            latestByKey.clear();
+        }
+    }
+
+    private static final class Pending {
+
+        private final Object key;
+        private final boolean coalescing;
+        private final boolean exclusive;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private Write write;
+
+        private Pending(Object key, boolean coalescing, boolean exclusive, Write write) {
+            this.key = key;
+            this.coalescing = coalescing;
+            this.exclusive = exclusive;
+            this.write = write;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.cms.database;
+
+public record WriteQueueStats(
+        long submitted,
+        long coalesced,
+        long committed,
+        long failed,
+        long batches,
+        int pending,
+        long retries,
+        long busyFailures,
+        double averageQueueDelayMillis,
+        double maxQueueDelayMillis
+) {
+
+    public double averageBatchSize() {
+        return batches == 0 ? 0 : (double) (committed + failed) / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("writes[submitted=%d, coalesced=%d, committed=%d, failed=%d, batches=%d, avgBatch=%.1f, pending=%d, "
+                        + "busyRetries=%d, busyFailures=%d, avgQueueDelay=%.3fms, maxQueueDelay=%.3fms]",
+                submitted, coalesced, committed, failed, batches, averageBatchSize(), pending,
+                retries, busyFailures, averageQueueDelayMillis, maxQueueDelayMillis);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.cms.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One database operation, from pool checkout until the last row has been mapped. The event's own
+// duration is the total; the three phases below add up to it.
+// Record with: java -XX:StartFlightRecording:filename=cms.jfr ...
+@Name("com.example.cms.DatabaseOperation")
+@Label("Database Operation")
+@Category({"CMS", "Database"})
+@Description("A query or write against the SQLite database")
+@StackTrace(false)
+public class DatabaseOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("SQL")
+    @Description("Statement text with ? placeholders, so events of the same query group together")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Rows returned or changed, -1 if not known")
+    public long rows;
+
+    @Label("Connection Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long connectTime;
+
+    @Label("Execution Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long executeTime;
+
+    @Label("Mapping Time")
+    @Description("Time spent reading the ResultSet into objects")
+    @Timespan(Timespan.NANOSECONDS)
+    public long mapTime;
+
+    @Label("Failed")
+    public boolean failed;
+}
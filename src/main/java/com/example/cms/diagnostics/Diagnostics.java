@@ -0,0 +1,88 @@
+package com.example.cms.diagnostics;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide latency histograms, one per named operation ("db.search.fts", "ui.roster.batch.queue").
+// Always on: recording costs a map lookup and a few atomic adds. The same operations are emitted as
+// JFR events (DatabaseOperationEvent, UiUpdateEvent) while a flight recording is running.
+// Pass -Dcms.diagnostics.dumpOnExit=true to print the report when the application exits.
+public final class Diagnostics {
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final boolean DUMP_ON_EXIT = Boolean.getBoolean("cms.diagnostics.dumpOnExit");
+
+    private Diagnostics() {
+    }
+
+    public static LatencyHistogram histogram(String operation) {
+        LatencyHistogram histogram = HISTOGRAMS.get(operation);
+        return histogram != null ? histogram : HISTOGRAMS.computeIfAbsent(operation, k -> new LatencyHistogram());
+    }
+
+    // Sorted by operation name, so related operations are listed together
+    public static List<LatencyStats> snapshot() {
+        List<LatencyStats> stats = new ArrayList<>();
+        HISTOGRAMS.forEach((operation, histogram) -> {
+            if (histogram.count() > 0) {
+                stats.add(histogram.snapshot(operation));
+            }
+        });
+        stats.sort((a, b) -> a.operation().compareTo(b.operation()));
+        return stats;
+    }
+
+    public static String report() {
+        List<LatencyStats> stats = snapshot();
+        if (stats.isEmpty()) {
+            return "No operations recorded yet";
+        }
+        StringBuilder sb = new StringBuilder(String.format("%-32s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (LatencyStats s : stats) {
+            sb.append(String.format("%-32s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", s.operation(), s.count(),
+                    s.meanNanos() / 1e6, s.p50Nanos() / 1e6, s.p99Nanos() / 1e6, s.p999Nanos() / 1e6, s.maxNanos() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    public static void reset() {
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+
+    public static void dumpIfRequested() {
+        if (DUMP_ON_EXIT) {
+            System.out.print(report());
+        }
+    }
+
+    // Platform.runLater that records how long the update waited for the FX thread ("ui.<operation>.queue")
+    // and how long it then ran there ("ui.<operation>.run")
+    public static void runLater(String operation, Runnable update) {
+        LatencyHistogram queue = histogram("ui." + operation + ".queue");
+        LatencyHistogram run = histogram("ui." + operation + ".run");
+        long queued = System.nanoTime();
+        Platform.runLater(() -> {
+            UiUpdateEvent event = new UiUpdateEvent();
+            event.begin();
+            long started = System.nanoTime();
+            try {
+                update.run();
+            } finally {
+                long finished = System.nanoTime();
+                queue.record(started - queued);
+                run.record(finished - started);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = operation;
+                    event.queueTime = started - queued;
+                    event.commit();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.cms.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram. Values below SUB_BUCKETS nanoseconds
+// are counted exactly; above that every power of two is split into SUB_BUCKETS / 2 linear buckets,
+// so a recorded value is off by at most 1/32 (~3%) whatever its magnitude.
+// Recording is a few uncontended atomic adds and never locks or allocates.
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    // About 2.4 hours; anything slower is counted as this value
+    private static final long MAX_VALUE = (1L << 43) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    // Percentiles are read from a copy of the buckets; concurrent recording may shift them by a few samples
+    public LatencyStats snapshot(String operation) {
+        long[] copy = new long[counts.length()];
+        long n = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        if (n == 0) {
+            return new LatencyStats(operation, 0, 0, 0, 0, 0, 0);
+        }
+        // A bucket's upper bound can lie above the largest value actually seen
+        long largest = max.get();
+        return new LatencyStats(operation, n,
+                sum.sum() / Math.max(1, total.sum()),
+                Math.min(percentile(copy, n, 0.50), largest),
+                Math.min(percentile(copy, n, 0.99), largest),
+                Math.min(percentile(copy, n, 0.999), largest),
+                largest);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static long percentile(long[] counts, long n, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValueAt(i);
+            }
+        }
+        return highestValueAt(counts.length - 1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Shift so that value >>> shift lies in [HALF, SUB_BUCKETS)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return (shift + 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    // Largest value that falls into the bucket, so reported percentiles never understate latency
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long subBucket = index % HALF + HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
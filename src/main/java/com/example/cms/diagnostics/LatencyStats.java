@@ -0,0 +1,19 @@
+package com.example.cms.diagnostics;
+
+// Latencies are in nanoseconds
+public record LatencyStats(
+        String operation,
+        long count,
+        long meanNanos,
+        long p50Nanos,
+        long p99Nanos,
+        long p999Nanos,
+        long maxNanos
+) {
+
+    @Override
+    public String toString() {
+        return String.format("%s[count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, p999=%.3fms, max=%.3fms]",
+                operation, count, meanNanos / 1e6, p50Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6, maxNanos / 1e6);
+    }
+}
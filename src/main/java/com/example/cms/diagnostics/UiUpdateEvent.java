@@ -0,0 +1,26 @@
+package com.example.cms.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// A UI update handed to the FX thread with Platform.runLater. The event's duration is the time the
+// update ran on the FX thread; queueTime is how long it waited to get there.
+@Name("com.example.cms.UiUpdate")
+@Label("UI Update")
+@Category({"CMS", "UI"})
+@Description("A background result applied on the JavaFX application thread")
+@StackTrace(false)
+public class UiUpdateEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Queue Time")
+    @Description("From Platform.runLater until the update started on the FX thread")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueTime;
+}
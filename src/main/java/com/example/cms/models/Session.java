@@ -1,21 +1,37 @@
 package com.example.cms.models;
 
+import java.time.Duration;
+
+// The desktop window's signed-in user, held as a token in the process-wide SessionStore.
+// Idle sessions expire after -Dcms.session.idleMinutes (default 30).
 public class Session {
-    private static int currentUserId = -1;
+    private static final SessionStore STORE = new SessionStore(
+            Duration.ofMinutes(Long.getLong("cms.session.idleMinutes", 30)));
+    private static volatile String currentToken;
 
-    public static int getCurrentUserId() {
-        return currentUserId;
+    public static SessionStore store() {
+        return STORE;
     }
 
-    public static void setCurrentUserId(int userId) {
-        currentUserId = userId;
+    public static UserSession start(int userId, String username) {
+        UserSession session = STORE.open(userId, username);
+        String previous = currentToken;
+        currentToken = session.token();
+        STORE.close(previous);
+        return session;
+    }
+
+    public static int getCurrentUserId() {
+        return STORE.get(currentToken).map(UserSession::userId).orElse(-1);
     }
 
     public static boolean isLoggedIn() {
-        return currentUserId != -1;
+        return getCurrentUserId() != -1;
     }
 
     public static void logout() {
-        currentUserId = -1;
+        String token = currentToken;
+        currentToken = null;
+        STORE.close(token);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.example.cms.models;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Signed-in sessions keyed by a random 256-bit token, so any number of users can be logged in at once.
+// A session expires after idleTimeout without a lookup; every successful get() extends it.
+// Lookups never lock or touch SQLite. Expired sessions are dropped on lookup and, at most once per
+// second, swept when a new session is opened.
+public final class SessionStore {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static final class Entry {
+        private final UserSession session;
+        private volatile long expiresAt;
+
+        private Entry(UserSession session, long expiresAt) {
+            this.session = session;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long idleTimeoutNanos;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public SessionStore(Duration idleTimeout) {
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    public UserSession open(int userId, String username) {
+        long now = System.nanoTime();
+        sweep(now);
+        UserSession session = new UserSession(newToken(), userId, username, Instant.now());
+        sessions.put(session.token(), new Entry(session, now + idleTimeoutNanos));
+        return session;
+    }
+
+    public Optional<UserSession> get(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Entry entry = sessions.get(token);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long now = System.nanoTime();
+        if (now - entry.expiresAt >= 0) {
+            sessions.remove(token, entry);
+            return Optional.empty();
+        }
+        entry.expiresAt = now + idleTimeoutNanos;
+        return Optional.of(entry.session);
+    }
+
+    public boolean close(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    // Sessions that have not been swept yet may include some that already expired
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        sessions.values().removeIf(entry -> now - entry.expiresAt >= 0);
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
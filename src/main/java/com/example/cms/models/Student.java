@@ -1,5 +1,12 @@
 package com.example.cms.models;
 
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+
+// Properties are created the first time a table cell asks for them and then reused, so rendering,
+// scrolling and sorting read the same objects instead of allocating a new property per cell
 public class Student {
     private int id;
     private String name;
@@ -8,6 +15,13 @@ public class Student {
     private String department;
     private String group;
 
+    private SimpleObjectProperty<Integer> idProperty;
+    private SimpleStringProperty nameProperty;
+    private SimpleStringProperty surnameProperty;
+    private SimpleStringProperty facultyProperty;
+    private SimpleStringProperty departmentProperty;
+    private SimpleStringProperty groupProperty;
+
     public Student(int id, String name, String surname, String faculty, String department, String group) {
         this.id = id;
         this.name = name;
@@ -23,6 +37,9 @@ public class Student {
 
     public void setId(int id) {
         this.id = id;
+        if (idProperty != null) {
+            idProperty.set(getId());
+        }
     }
 
     public String getName() {
@@ -31,6 +48,9 @@ public class Student {
 
     public void setName(String name) {
         this.name = name;
+        if (nameProperty != null) {
+            nameProperty.set(getName());
+        }
     }
 
     public String getSurname() {
@@ -39,6 +59,9 @@ public class Student {
 
     public void setSurname(String surname) {
         this.surname = surname;
+        if (surnameProperty != null) {
+            surnameProperty.set(getSurname());
+        }
     }
 
     public String getFaculty() {
@@ -47,6 +70,9 @@ public class Student {
 
     public void setFaculty(String faculty) {
         this.faculty = faculty;
+        if (facultyProperty != null) {
+            facultyProperty.set(getFaculty());
+        }
     }
 
     public String getDepartment() {
@@ -55,6 +81,9 @@ public class Student {
 
     public void setDepartment(String department) {
         this.department = department;
+        if (departmentProperty != null) {
+            departmentProperty.set(getDepartment());
+        }
     }
 
     public String getGroup() {
@@ -63,5 +92,50 @@ public class Student {
 
     public void setGroup(String group) {
         this.group = group;
+        if (groupProperty != null) {
+            groupProperty.set(getGroup());
+        }
+    }
+
+    public ReadOnlyObjectProperty<Integer> idProperty() {
+        if (idProperty == null) {
+            idProperty = new SimpleObjectProperty<>(this, "id", getId());
+        }
+        return idProperty;
+    }
+
+    public ReadOnlyStringProperty nameProperty() {
+        if (nameProperty == null) {
+            nameProperty = new SimpleStringProperty(this, "name", getName());
+        }
+        return nameProperty;
+    }
+
+    public ReadOnlyStringProperty surnameProperty() {
+        if (surnameProperty == null) {
+            surnameProperty = new SimpleStringProperty(this, "surname", getSurname());
+        }
+        return surnameProperty;
+    }
+
+    public ReadOnlyStringProperty facultyProperty() {
+        if (facultyProperty == null) {
+            facultyProperty = new SimpleStringProperty(this, "faculty", getFaculty());
+        }
+        return facultyProperty;
+    }
+
+    public ReadOnlyStringProperty departmentProperty() {
+        if (departmentProperty == null) {
+            departmentProperty = new SimpleStringProperty(this, "department", getDepartment());
+        }
+        return departmentProperty;
+    }
+
+    public ReadOnlyStringProperty groupProperty() {
+        if (groupProperty == null) {
+            groupProperty = new SimpleStringProperty(this, "group", getGroup());
+        }
+        return groupProperty;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,481 @@
+package com.example.cms.models;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.ModifiableObservableListBase;
+import javafx.collections.ObservableList;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Column-oriented roster storage. Ids are kept in an int[]; names and surnames share one string
+// dictionary, and faculty, department and group (few distinct values) each have their own, so a
+// row costs a handful of ints instead of a Student object plus five Strings.
+// Row views are read-only Students whose getters read the columns. They are created on demand and
+// never retained by the store, and two views of the same row are equal. Views from get and rows()
+// create their properties per call; the table list reuses a bounded window of views that cache them,
+// so re-rendering a row that is on screen allocates nothing and nothing per row outlives the window.
+public class StudentStore {
+
+    private static final int NULL_CODE = -1;
+
+    private int[] ids;
+    private int[] names;
+    private int[] surnames;
+    private int[] faculties;
+    private int[] departments;
+    private int[] groups;
+    private int size = 0;
+
+    private final Dictionary personNames = new Dictionary();
+    private final Dictionary facultyValues = new Dictionary();
+    private final Dictionary departmentValues = new Dictionary();
+    private final Dictionary groupValues = new Dictionary();
+
+    public StudentStore() {
+        this(16);
+    }
+
+    public StudentStore(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new int[capacity];
+        names = new int[capacity];
+        surnames = new int[capacity];
+        faculties = new int[capacity];
+        departments = new int[capacity];
+        groups = new int[capacity];
+    }
+
+    public static StudentStore of(Collection<? extends Student> students) {
+        StudentStore store = new StudentStore(students.size());
+        for (Student s : students) {
+            store.append(s);
+        }
+        return store;
+    }
+
+    // Copies the student into the columns and returns its row view
+    public Student add(Student student) {
+        return get(append(student));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Student get(int row) {
+        Objects.checkIndex(row, size);
+        return new Row(this, row, false);
+    }
+
+    // Read-only list of the rows as they are now; get(i) creates a fresh view
+    public List<Student> rows() {
+        int count = size;
+        return new RowViews(count);
+    }
+
+    // Modifiable list for a TableView that holds one int per row instead of a Student. Students
+    // added to it that are not views of this store are kept as they are, the store itself is never
+    // appended to, so it can be shared with other threads that only read it. Only the FX thread may
+    // read it: get reuses views from a window of recently shown rows.
+    public ObservableList<Student> observableRows() {
+        return new RowList(this);
+    }
+
+    // Plain Student copies that do not reference the store
+    public List<Student> toStudents() {
+        List<Student> students = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            students.add(new Student(ids[row],
+                    personNames.value(names[row]),
+                    personNames.value(surnames[row]),
+                    facultyValues.value(faculties[row]),
+                    departmentValues.value(departments[row]),
+                    groupValues.value(groups[row])));
+        }
+        return students;
+    }
+
+    // Approximate retained heap: the column arrays and dictionary strings
+    public long estimatedBytes() {
+        long bytes = 6L * 4 * ids.length;
+        return bytes + personNames.estimatedBytes() + facultyValues.estimatedBytes()
+                + departmentValues.estimatedBytes() + groupValues.estimatedBytes();
+    }
+
+    private int append(Student s) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = s.getId();
+        names[row] = personNames.code(s.getName());
+        surnames[row] = personNames.code(s.getSurname());
+        faculties[row] = facultyValues.code(s.getFaculty());
+        departments[row] = departmentValues.code(s.getDepartment());
+        groups[row] = groupValues.code(s.getGroup());
+        return row;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        surnames = Arrays.copyOf(surnames, capacity);
+        faculties = Arrays.copyOf(faculties, capacity);
+        departments = Arrays.copyOf(departments, capacity);
+        groups = Arrays.copyOf(groups, capacity);
+    }
+
+    private final class RowViews extends AbstractList<Student> implements RandomAccess {
+
+        private final int count;
+
+        private RowViews(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public Student get(int index) {
+            Objects.checkIndex(index, count);
+            return new Row(StudentStore.this, index, false);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    // codes[i] >= 0 is a row of the store, otherwise -1 - (slot in added). Added students are found by
+    // identity and reference-counted, so a slot is freed (and reused) once no position refers to it.
+    private static final class RowList extends ModifiableObservableListBase<Student> implements RandomAccess {
+
+        private static final int WINDOW = 1024;
+
+        private final StudentStore store;
+        private final Row[] window = new Row[WINDOW];
+        private final List<Student> added = new ArrayList<>();
+        private final IdentityHashMap<Student, Integer> slots = new IdentityHashMap<>();
+        private int[] references = new int[0];
+        private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private int[] codes;
+        private int size;
+
+        private RowList(StudentStore store) {
+            this.store = store;
+            this.size = store.size;
+            this.codes = new int[Math.max(size, 16)];
+            for (int row = 0; row < size; row++) {
+                codes[row] = row;
+            }
+        }
+
+        @Override
+        public Student get(int index) {
+            Objects.checkIndex(index, size);
+            return student(codes[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        // Sorting (FXCollections.sort) replaces the whole content: one pass and one change
+        // instead of the per-element removes the base class would do
+        @Override
+        public boolean setAll(Collection<? extends Student> students) {
+            int[] previous = codes;
+            int previousSize = size;
+            int[] next = new int[Math.max(students.size(), 16)];
+            int count = 0;
+            for (Student student : students) {
+                next[count++] = acquire(student);
+            }
+            // The removed rows are reported after their slots may have been freed
+            Student[] previousAdded = added.toArray(new Student[0]);
+            for (int i = 0; i < previousSize; i++) {
+                release(previous[i]);
+            }
+            codes = next;
+            size = count;
+
+            beginChange();
+            if (previousSize > 0) {
+                nextRemove(0, new AbstractList<Student>() {
+                    @Override
+                    public Student get(int index) {
+                        int code = previous[index];
+                        return code >= 0 ? new Row(store, code, false) : previousAdded[-1 - code];
+                    }
+
+                    @Override
+                    public int size() {
+                        return previousSize;
+                    }
+                });
+            }
+            if (count > 0) {
+                nextAdd(0, count);
+            }
+            endChange();
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            if (size > 0) {
+                setAll(List.of());
+            }
+        }
+
+        @Override
+        protected void doAdd(int index, Student element) {
+            Objects.checkIndex(index, size + 1);
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            int code = acquire(element);
+            System.arraycopy(codes, index, codes, index + 1, size - index);
+            codes[index] = code;
+            size++;
+        }
+
+        @Override
+        protected Student doSet(int index, Student element) {
+            Student previous = get(index);
+            int replaced = codes[index];
+            codes[index] = acquire(element);
+            release(replaced);
+            return previous;
+        }
+
+        @Override
+        protected Student doRemove(int index) {
+            Student previous = get(index);
+            release(codes[index]);
+            System.arraycopy(codes, index + 1, codes, index, size - index - 1);
+            size--;
+            return previous;
+        }
+
+        private Student student(int code) {
+            return code >= 0 ? view(code) : added.get(-1 - code);
+        }
+
+        // Direct-mapped by row number: the rows on screen keep their views (and the properties
+        // cached in them) while the table re-renders, a row that falls out is dropped
+        private Row view(int row) {
+            int slot = row & (WINDOW - 1);
+            Row view = window[slot];
+            if (view == null || view.row != row) {
+                view = new Row(store, row, true);
+                window[slot] = view;
+            }
+            return view;
+        }
+
+        private int acquire(Student student) {
+            Objects.requireNonNull(student);
+            if (student instanceof Row view && view.store == store) {
+                return view.row;
+            }
+            Integer slot = slots.get(student);
+            if (slot == null) {
+                slot = freeSlots.isEmpty() ? added.size() : freeSlots.pop();
+                if (slot == added.size()) {
+                    added.add(student);
+                    if (slot == references.length) {
+                        references = Arrays.copyOf(references, Math.max(16, slot * 2));
+                    }
+                } else {
+                    added.set(slot, student);
+                }
+                slots.put(student, slot);
+            }
+            references[slot]++;
+            return -1 - slot;
+        }
+
+        private void release(int code) {
+            if (code >= 0) {
+                return;
+            }
+            int slot = -1 - code;
+            if (--references[slot] == 0) {
+                slots.remove(added.get(slot));
+                added.set(slot, null);
+                freeSlots.push(slot);
+            }
+        }
+    }
+
+    // Maps each distinct string to a dense int code; equal values share one String instance
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private long chars = 0;
+
+        int code(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            if (next == values.length) {
+                values = Arrays.copyOf(values, next * 2);
+            }
+            values[next] = value;
+            codes.put(value, next);
+            chars += value.length();
+            return next;
+        }
+
+        String value(int code) {
+            return code == NULL_CODE ? null : values[code];
+        }
+
+        long estimatedBytes() {
+            // String header and array per value, plus the hash map entry pointing at it
+            return 4L * values.length + codes.size() * 88L + chars;
+        }
+    }
+
+    // A Student backed by one row of the store. Edits replace rows rather than change them, so the
+    // setters are not supported and a property never changes once created. A caching view keeps its
+    // properties like any Student; the others create them per call, so views held elsewhere (e.g. by
+    // the search index) never accumulate properties.
+    private static final class Row extends Student {
+
+        private final StudentStore store;
+        private final int row;
+        private final boolean cachesProperties;
+
+        private Row(StudentStore store, int row, boolean cachesProperties) {
+            super(0, null, null, null, null, null);
+            this.store = store;
+            this.row = row;
+            this.cachesProperties = cachesProperties;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row other && other.store == store && other.row == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(store) + row;
+        }
+
+        @Override
+        public int getId() {
+            return store.ids[row];
+        }
+
+        @Override
+        public String getName() {
+            return store.personNames.value(store.names[row]);
+        }
+
+        @Override
+        public String getSurname() {
+            return store.personNames.value(store.surnames[row]);
+        }
+
+        @Override
+        public String getFaculty() {
+            return store.facultyValues.value(store.faculties[row]);
+        }
+
+        @Override
+        public String getDepartment() {
+            return store.departmentValues.value(store.departments[row]);
+        }
+
+        @Override
+        public String getGroup() {
+            return store.groupValues.value(store.groups[row]);
+        }
+
+        @Override
+        public void setId(int id) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSurname(String surname) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setFaculty(String faculty) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDepartment(String department) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setGroup(String group) {
+            throw readOnly();
+        }
+
+        @Override
+        public ReadOnlyObjectProperty<Integer> idProperty() {
+            return cachesProperties ? super.idProperty() : new SimpleObjectProperty<>(this, "id", getId());
+        }
+
+        @Override
+        public ReadOnlyStringProperty nameProperty() {
+            return cachesProperties ? super.nameProperty() : new SimpleStringProperty(this, "name", getName());
+        }
+
+        @Override
+        public ReadOnlyStringProperty surnameProperty() {
+            return cachesProperties ? super.surnameProperty() : new SimpleStringProperty(this, "surname", getSurname());
+        }
+
+        @Override
+        public ReadOnlyStringProperty facultyProperty() {
+            return cachesProperties ? super.facultyProperty() : new SimpleStringProperty(this, "faculty", getFaculty());
+        }
+
+        @Override
+        public ReadOnlyStringProperty departmentProperty() {
+            return cachesProperties ? super.departmentProperty() : new SimpleStringProperty(this, "department", getDepartment());
+        }
+
+        @Override
+        public ReadOnlyStringProperty groupProperty() {
+            return cachesProperties ? super.groupProperty() : new SimpleStringProperty(this, "group", getGroup());
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Store rows are read-only");
+        }
+    }
+}
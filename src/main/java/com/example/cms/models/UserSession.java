@@ -0,0 +1,17 @@
+package com.example.cms.models;
+
+import java.time.Instant;
+
+public record UserSession(
+        String token,
+        int userId,
+        String username,
+        Instant created
+) {
+
+    // The token is a bearer credential, keep it out of logs
+    @Override
+    public String toString() {
+        return String.format("session[user=%s (%d), created=%s]", username, userId, created);
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.cms.search;
+
+import com.example.cms.models.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// In-memory trigram index over the six searchable Student fields.
+// Matches the semantics of Database.searchStudentsForUser: case-insensitive substring match on any
+// field, or a match anchored at the start of a field when the query ends with '*'.
+public class StudentSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final char FIELD_SEPARATOR = '\0';
+
+    private Student[] rows = new Student[16];
+    // Lower-cased fields of each row joined by FIELD_SEPARATOR, used to verify trigram candidates
+    private String[] keys = new String[16];
+    private int slotCount = 0;
+    private final IntList freeSlots = new IntList();
+    private final Map<Integer, Integer> slotByStudentId = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    public static StudentSearchIndex build(Collection<Student> students) {
+        StudentSearchIndex index = new StudentSearchIndex();
+        index.rebuild(students);
+        return index;
+    }
+
+    public synchronized void rebuild(Collection<Student> students) {
+        int capacity = Math.max(16, students.size());
+        rows = new Student[capacity];
+        keys = new String[capacity];
+        slotCount = 0;
+        freeSlots.clear();
+        slotByStudentId.clear();
+        postings.clear();
+        for (Student s : students) {
+            add(s);
+        }
+    }
+
+    // Adds the student, replacing any indexed student with the same id
+    public synchronized void add(Student student) {
+        remove(student.getId());
+
+        int slot = freeSlots.isEmpty() ? nextSlot() : freeSlots.removeLast();
+        String key = keyOf(student);
+        rows[slot] = student;
+        keys[slot] = key;
+        slotByStudentId.put(student.getId(), slot);
+        for (long gram : gramsOf(key)) {
+            postings.computeIfAbsent(gram, g -> new IntList()).insertSorted(slot);
+        }
+    }
+
+    public synchronized void update(Student student) {
+        add(student);
+    }
+
+    public synchronized boolean remove(int studentId) {
+        Integer slot = slotByStudentId.remove(studentId);
+        if (slot == null) {
+            return false;
+        }
+
+        for (long gram : gramsOf(keys[slot])) {
+            IntList list = postings.get(gram);
+            if (list != null) {
+                list.removeSorted(slot);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        rows[slot] = null;
+        keys[slot] = null;
+        freeSlots.add(slot);
+        return true;
+    }
+
+    // Removes the student only if this very instance is the one indexed under its id
+    public synchronized boolean removeIfSame(Student student) {
+        Integer slot = slotByStudentId.get(student.getId());
+        return slot != null && rows[slot] == student && remove(student.getId());
+    }
+
+    public synchronized boolean contains(int studentId) {
+        return slotByStudentId.containsKey(studentId);
+    }
+
+    public synchronized int size() {
+        return slotByStudentId.size();
+    }
+
+    public synchronized List<Student> search(String text) {
+        Query parsed = Query.parse(text);
+        String query = parsed.text();
+        boolean prefix = parsed.prefix();
+
+        List<Student> result = new ArrayList<>();
+        if (query.length() < GRAM) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (keys[slot] != null && matches(keys[slot], query, prefix)) {
+                    result.add(rows[slot]);
+                }
+            }
+            return result;
+        }
+
+        IntList candidates = candidatesFor(query);
+        for (int i = 0; i < candidates.size(); i++) {
+            int slot = candidates.get(i);
+            if (matches(keys[slot], query, prefix)) {
+                result.add(rows[slot]);
+            }
+        }
+        return result;
+    }
+
+    // True when every student matching next also matches previous, so the results of next can be
+    // filtered out of the results of previous instead of searched for again
+    public static boolean narrows(String previous, String next) {
+        Query before = Query.parse(previous);
+        Query after = Query.parse(next);
+        if (before.text().isEmpty()) {
+            return false;
+        }
+        if (!before.prefix()) {
+            return after.text().contains(before.text());
+        }
+        return after.prefix() && after.text().startsWith(before.text());
+    }
+
+    // The students that match the query, in their original order, without building an index
+    public static List<Student> filter(List<Student> students, String text) {
+        Query query = Query.parse(text);
+        List<Student> result = new ArrayList<>();
+        for (Student s : students) {
+            if (matches(keyOf(s), query.text(), query.prefix())) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    // Intersects the posting lists of every trigram in the query, smallest list first
+    private IntList candidatesFor(String query) {
+        List<IntList> lists = new ArrayList<>();
+        for (long gram : gramsOf(query)) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new IntList();
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        IntList result = lists.get(0).copy();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private int nextSlot() {
+        if (slotCount == rows.length) {
+            int capacity = rows.length * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        return slotCount++;
+    }
+
+    private static boolean matches(String key, String query, boolean prefix) {
+        if (!prefix) {
+            return key.contains(query);
+        }
+        for (int i = key.indexOf(query); i >= 0; i = key.indexOf(query, i + 1)) {
+            if (i == 0 || key.charAt(i - 1) == FIELD_SEPARATOR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String keyOf(Student s) {
+        return (String.valueOf(s.getId()) + FIELD_SEPARATOR
+                + nullToEmpty(s.getName()) + FIELD_SEPARATOR
+                + nullToEmpty(s.getSurname()) + FIELD_SEPARATOR
+                + nullToEmpty(s.getFaculty()) + FIELD_SEPARATOR
+                + nullToEmpty(s.getDepartment()) + FIELD_SEPARATOR
+                + nullToEmpty(s.getGroup())).toLowerCase(Locale.ROOT);
+    }
+
+    // Distinct trigrams of the text, skipping any that would span two fields
+    private static Set<Long> gramsOf(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) {
+                continue;
+            }
+            grams.add(((long) a << 32) | ((long) b << 16) | c);
+        }
+        return grams;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Lower-cased query text; a trailing '*' anchors the match at the start of a field
+    private record Query(String text, boolean prefix) {
+
+        static Query parse(String text) {
+            String query = text.trim().toLowerCase(Locale.ROOT);
+            boolean prefix = query.endsWith("*");
+            return new Query(prefix ? query.substring(0, query.length() - 1) : query, prefix);
+        }
+    }
+
+    // Growable sorted list of primitive ints, used for posting lists
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        void insertSorted(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = value;
+            size++;
+        }
+
+        void removeSorted(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            size--;
+        }
+
+        IntList copy() {
+            IntList copy = new IntList();
+            copy.values = Arrays.copyOf(values, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+
+        // In-place merge intersection of two sorted lists
+        void retainAll(IntList other) {
+            int i = 0;
+            int j = 0;
+            int kept = 0;
+            while (i < size && j < other.size) {
+                int a = values[i];
+                int b = other.values[j];
+                if (a == b) {
+                    values[kept++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.cms.security;
+
+public record HasherStats(
+        int iterations,
+        int threads,
+        int queued,
+        long hashed,
+        long verified,
+        long rejected
+) {
+
+    @Override
+    public String toString() {
+        return String.format("hasher[iterations=%d, threads=%d, queued=%d, hashed=%d, verified=%d, rejected=%d]",
+                iterations, threads, queued, hashed, verified, rejected);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.cms.security;
+
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.diagnostics.LatencyHistogram;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Salted, cost-parameterized password hashes in a versioned text format:
+//
+//   $pbkdf2-sha256$v=1$i=<iterations>$<salt>$<hash>     (base64, 16-byte salt, PBKDF2-HMAC-SHA256)
+//
+// Hashes stored before the format existed (bare base64 of an unsalted SHA-256) still verify.
+// needsRehash reports those, and any hash made with fewer iterations than configured, so a caller can
+// replace the stored hash after a successful login.
+// Key derivation is deliberately slow, so it runs on its own pool of platform threads sized to the
+// cores instead of on the database threads. At most maxQueued requests wait; the rest are rejected.
+public final class PasswordHasher implements AutoCloseable {
+
+    public static final int DEFAULT_ITERATIONS = 600_000;
+    public static final int DEFAULT_MAX_QUEUED = 256;
+    public static final int MIN_ITERATIONS = 10_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "$pbkdf2-sha256$v=1$i=";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private record Pbkdf2Hash(int iterations, byte[] salt, byte[] hash) {
+    }
+
+    private final int iterations;
+    private final int threads;
+    private final ThreadPoolExecutor pool;
+    private final SecureRandom random = new SecureRandom();
+    private final LatencyHistogram waitTime = Diagnostics.histogram("auth.hash.wait");
+    private final LatencyHistogram hashTime = Diagnostics.histogram("auth.hash");
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHasher(int iterations, int threads, int maxQueued) {
+        if (iterations < MIN_ITERATIONS) {
+            throw new IllegalArgumentException("At least " + MIN_ITERATIONS + " iterations are required");
+        }
+        // A worker completes its future just before it takes the next task, so a hand-off queue
+        // (SynchronousQueue) would reject the caller's very next request
+        if (threads < 1 || maxQueued < 1) {
+            throw new IllegalArgumentException("Hashing needs at least one thread and one queue slot");
+        }
+        this.iterations = iterations;
+        this.threads = threads;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                Thread.ofPlatform().name("cms-hash-", 0).daemon().factory());
+    }
+
+    // -Dcms.auth.pbkdf2Iterations, -Dcms.auth.hashThreads (default: one per core), -Dcms.auth.hashQueue
+    public static PasswordHasher fromSystemProperties() {
+        return new PasswordHasher(
+                Integer.getInteger("cms.auth.pbkdf2Iterations", DEFAULT_ITERATIONS),
+                Integer.getInteger("cms.auth.hashThreads", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("cms.auth.hashQueue", DEFAULT_MAX_QUEUED));
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> {
+            byte[] salt = new byte[SALT_BYTES];
+            random.nextBytes(salt);
+            hashed.increment();
+            return encode(iterations, salt, derive(password, salt, iterations));
+        });
+    }
+
+    // A null stored hash (unknown user) is checked against a throwaway one, so it takes as long as a
+    // wrong password and response times do not reveal which usernames exist
+    public CompletableFuture<Boolean> verify(String password, String stored) {
+        return submit(() -> {
+            verified.increment();
+            if (stored == null) {
+                byte[] salt = new byte[SALT_BYTES];
+                random.nextBytes(salt);
+                derive(password, salt, iterations);
+                return false;
+            }
+            if (!stored.startsWith(PREFIX)) {
+                return MessageDigest.isEqual(legacyHash(password).getBytes(StandardCharsets.UTF_8),
+                        stored.getBytes(StandardCharsets.UTF_8));
+            }
+            Pbkdf2Hash parsed = parse(stored);
+            return parsed != null && MessageDigest.isEqual(parsed.hash(), derive(password, parsed.salt(), parsed.iterations()));
+        });
+    }
+
+    public boolean needsRehash(String stored) {
+        Pbkdf2Hash parsed = stored == null ? null : parse(stored);
+        return parsed == null || parsed.iterations() < iterations;
+    }
+
+    public HasherStats getStats() {
+        return new HasherStats(iterations, threads, pool.getQueue().size(), hashed.sum(), verified.sum(), rejected.sum());
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    // Iterations that make one hash take about `target` on this machine, rounded to a thousand.
+    // Runs on the calling thread. Until the JIT has compiled the HMAC loop a hash is several times
+    // slower, so it first hashes until five in a row are within 10% of the fastest (at most 30 s).
+    public static int calibrate(Duration target) {
+        int probe = 50_000;
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        long fastest = Long.MAX_VALUE;
+        int steady = 0;
+        while (steady < 5 && System.nanoTime() - deadline < 0) {
+            long elapsed = timeDerive(probe);
+            // Still getting faster by more than 10% (or an outlier) starts the count again
+            steady = elapsed * 1.1 >= fastest && elapsed <= fastest * 1.1 ? steady + 1 : 0;
+            fastest = Math.min(fastest, elapsed);
+        }
+
+        long[] samples = new long[5];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = timeDerive(probe);
+        }
+        Arrays.sort(samples);
+        double nanosPerIteration = (double) samples[samples.length / 2] / probe;
+        long iterations = Math.round(target.toNanos() / nanosPerIteration / 1000.0) * 1000;
+        return Math.clamp(iterations, MIN_ITERATIONS, Integer.MAX_VALUE);
+    }
+
+    private static long timeDerive(int iterations) {
+        long start = System.nanoTime();
+        derive("calibration", new byte[SALT_BYTES], iterations);
+        return System.nanoTime() - start;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queued = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long started = System.nanoTime();
+                waitTime.record(started - queued);
+                try {
+                    return task.get();
+                } finally {
+                    hashTime.record(System.nanoTime() - started);
+                }
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to hash password", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Format version 0: unsalted SHA-256, as stored by earlier releases
+    private static String legacyHash(String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash password", e);
+        }
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    // null for anything that is not a well-formed version 1 hash
+    private static Pbkdf2Hash parse(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[0]);
+            Base64.Decoder base64 = Base64.getDecoder();
+            return iterations > 0 ? new Pbkdf2Hash(iterations, base64.decode(parts[1]), base64.decode(parts[2])) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.example.cms.server;
+
+import com.example.cms.database.Database;
+import com.example.cms.database.FacetCounts;
+import com.example.cms.database.PageKey;
+import com.example.cms.database.StudentSort;
+import com.example.cms.diagnostics.Diagnostics;
+import com.example.cms.diagnostics.LatencyHistogram;
+import com.example.cms.models.Session;
+import com.example.cms.models.Student;
+import com.example.cms.models.UserSession;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Headless server mode: the Database API over HTTP/JSON for any number of users at once, without
+// starting JavaFX. Each request runs on its own virtual thread and borrows from the shared connection
+// pool like the desktop client does. Student routes always act on the user_id of the caller's session,
+// never on an id taken from the request.
+//
+//   POST   /api/register          {"username", "password"}                            201 | 409
+//   POST   /api/login             {"username", "password"}       -> {"token", "userId", "username"}
+//   POST   /api/logout
+//   GET    /api/students          ?q=<search>&limit=&after=<next>  or  ?q=<search>&sort=rank&limit=
+//                                  or  ?sort=&order=asc|desc&limit=&after=<next>
+//   POST   /api/students          {"id", "name", "surname", "faculty", "department", "group"}  201 | 409
+//   GET    /api/students/<id>
+//   PUT    /api/students/<id>     {"name", "surname", "faculty", "department", "group"}
+//   DELETE /api/students/<id>                                                          204 | 404
+//   GET    /api/facets            ?q=<search>
+//   GET    /api/health
+//
+// Everything except register, login and health needs "Authorization: Bearer <token>".
+// -Dcms.server.host (default 127.0.0.1), -Dcms.server.port (default 8080, or the first argument).
+//
+// Process-wide statistics cover every tenant, so they are not on the API port. With
+// -Dcms.server.adminPort=<port> a second listener on the loopback interface only serves
+//   GET    /api/diagnostics       latency report and pool, queue and cache counters (text/plain)
+public final class CmsServer {
+
+    private static final String API = "/api";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_FIELD_LENGTH = 255;
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    // Ends a request with a status other than 200, e.g. 404 for a student the user does not have
+    private static final class HttpError extends RuntimeException {
+        private final int status;
+
+        private HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private record Response(int status, String contentType, String body) {
+
+        static Response json(int status, String body) {
+            return new Response(status, "application/json; charset=utf-8", body);
+        }
+
+        static Response text(String body) {
+            return new Response(200, "text/plain; charset=utf-8", body);
+        }
+
+        static Response empty() {
+            return new Response(204, null, null);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(HttpExchange exchange) throws SQLException, IOException;
+    }
+
+    private final HttpServer server;
+    private final HttpServer admin;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+
+    // adminPort < 0 disables the admin listener; 0 picks a free port
+    public CmsServer(InetSocketAddress address, int adminPort) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.setExecutor(requests);
+        route(server, "/register", "http.register", this::register);
+        route(server, "/login", "http.login", this::login);
+        route(server, "/logout", "http.logout", this::logout);
+        route(server, "/students", "http.students", this::students);
+        route(server, "/facets", "http.facets", this::facets);
+        route(server, "/health", "http.health", exchange -> Response.json(200, "{\"status\":\"ok\"}"));
+
+        if (adminPort < 0) {
+            admin = null;
+            return;
+        }
+        admin = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), adminPort), 0);
+        admin.setExecutor(requests);
+        route(admin, "/diagnostics", "http.diagnostics", this::diagnostics);
+    }
+
+    public void start() {
+        server.start();
+        if (admin != null) {
+            admin.start();
+        }
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // -1 if there is no admin listener
+    public int adminPort() {
+        return admin == null ? -1 : admin.getAddress().getPort();
+    }
+
+    // Waits up to `seconds` for requests in flight, then stops accepting connections
+    public void stop(int seconds) {
+        if (admin != null) {
+            admin.stop(0);
+        }
+        server.stop(seconds);
+        requests.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = System.getProperty("cms.server.host", "127.0.0.1");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("cms.server.port", DEFAULT_PORT);
+
+        Database.createTables();
+        CmsServer server = new CmsServer(new InetSocketAddress(host, port), Integer.getInteger("cms.server.adminPort", -1));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            Database.shutdown();
+            Diagnostics.dumpIfRequested();
+        }, "cms-server-shutdown"));
+        server.start();
+        System.out.println("CMS server listening on http://" + host + ":" + server.port() + API);
+        if (server.adminPort() >= 0) {
+            System.out.println("Diagnostics on http://127.0.0.1:" + server.adminPort() + API + "/diagnostics");
+        }
+    }
+
+    private static void route(HttpServer target, String path, String operation, Endpoint endpoint) {
+        LatencyHistogram latency = Diagnostics.histogram(operation);
+        target.createContext(API + path, exchange -> {
+            long start = System.nanoTime();
+            try (exchange) {
+                send(exchange, respond(exchange, path, endpoint));
+            } finally {
+                latency.record(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static Response respond(HttpExchange exchange, String path, Endpoint endpoint) {
+        try {
+            // Contexts match by prefix; only /students has sub-paths
+            String rest = exchange.getRequestURI().getPath().substring(API.length() + path.length());
+            if (!rest.isEmpty() && !(path.equals("/students") && rest.startsWith("/"))) {
+                throw new HttpError(404, "Not found");
+            }
+            return endpoint.handle(exchange);
+        } catch (HttpError e) {
+            return error(e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return error(400, e.getMessage());
+        } catch (SQLTransientException e) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+            return error(503, e.getMessage());
+        } catch (SQLException | IOException | RuntimeException e) {
+            System.err.println("Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+            return error(500, "Internal server error");
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        if (response.body() == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType());
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Response error(int status, String message) {
+        return Response.json(status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    // ---- Accounts ----
+
+    private Response register(HttpExchange exchange) throws SQLException, IOException {
+        requireMethod(exchange, "POST");
+        Map<String, Object> body = readBody(exchange);
+        String username = requiredString(body, "username").trim();
+        String password = requiredString(body, "password");
+        // Same rules as the desktop registration form
+        if (username.length() < 3) {
+            throw new IllegalArgumentException("Username must be at least 3 characters long");
+        }
+        if (password.length() < 4) {
+            throw new IllegalArgumentException("Password must be at least 4 characters long");
+        }
+        if (!Database.registerUser(username, password)) {
+            throw new HttpError(409, "Username already exists");
+        }
+        return Response.json(201, "{\"username\":" + Json.quote(username) + "}");
+    }
+
+    private Response login(HttpExchange exchange) throws SQLException, IOException {
+        requireMethod(exchange, "POST");
+        Map<String, Object> body = readBody(exchange);
+        String username = requiredString(body, "username").trim();
+        int userId = Database.authenticateUser(username, requiredString(body, "password"));
+        if (userId == -1) {
+            throw new HttpError(401, "Invalid username or password");
+        }
+        UserSession session = Session.store().open(userId, username);
+        return Response.json(200, "{\"token\":" + Json.quote(session.token())
+                + ",\"userId\":" + userId
+                + ",\"username\":" + Json.quote(username) + "}");
+    }
+
+    private Response logout(HttpExchange exchange) {
+        requireMethod(exchange, "POST");
+        Session.store().close(authenticate(exchange).token());
+        return Response.empty();
+    }
+
+    // ---- Students ----
+
+    private Response students(HttpExchange exchange) throws SQLException, IOException {
+        UserSession session = authenticate(exchange);
+        String rest = exchange.getRequestURI().getPath().substring((API + "/students").length());
+        String method = exchange.getRequestMethod();
+        if (rest.isEmpty() || rest.equals("/")) {
+            return switch (method) {
+                case "GET" -> listStudents(exchange, session.userId());
+                case "POST" -> addStudent(exchange, session.userId());
+                default -> throw methodNotAllowed(exchange, "GET, POST");
+            };
+        }
+        int studentId = parseStudentId(rest.substring(1));
+        return switch (method) {
+            case "GET" -> {
+                Student student = Database.getStudentForUser(studentId, session.userId());
+                if (student == null) {
+                    throw studentNotFound(studentId);
+                }
+                yield Response.json(200, toJson(student));
+            }
+            case "PUT" -> {
+                Student student = readStudent(readBody(exchange), studentId);
+                if (Database.updateStudentForUser(student, session.userId()) == 0) {
+                    throw studentNotFound(studentId);
+                }
+                yield Response.json(200, toJson(student));
+            }
+            case "DELETE" -> {
+                if (Database.deleteStudentForUser(studentId, session.userId()) == 0) {
+                    throw studentNotFound(studentId);
+                }
+                yield Response.empty();
+            }
+            default -> throw methodNotAllowed(exchange, "GET, PUT, DELETE");
+        };
+    }
+
+    // With q: one page of search matches (as in the desktop search box) in student id order, or with
+    // sort=rank the best `limit` matches and no further pages.
+    // Without: one keyset page in the requested order. Either way, pass "next" back as "after" for the
+    // following page. Pages are limited in SQL, so a request never holds more than `limit` rows.
+    private Response listStudents(HttpExchange exchange, int userId) throws SQLException {
+        Map<String, String> query = queryParameters(exchange);
+        int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        String after = query.get("after");
+        String text = query.getOrDefault("q", "").trim();
+        if (!text.isEmpty() && "rank".equals(query.get("sort"))) {
+            if (after != null) {
+                throw new IllegalArgumentException("sort=rank has a single page");
+            }
+            List<Student> best = Database.searchStudentsRankedForUser(text, userId, limit);
+            return Response.json(200, "{\"students\":" + toJson(best) + ",\"next\":null}");
+        }
+        if (!text.isEmpty()) {
+            int afterId = after == null ? 0 : decodeCursor(StudentSort.ID, after).studentId();
+            List<Student> page = Database.searchStudentsPageForUser(text, userId, afterId, limit);
+            return page(page, StudentSort.ID, limit);
+        }
+
+        StudentSort sort = StudentSort.valueOf(query.getOrDefault("sort", "id").toUpperCase(Locale.ROOT));
+        boolean ascending = switch (query.getOrDefault("order", "asc")) {
+            case "asc" -> true;
+            case "desc" -> false;
+            default -> throw new IllegalArgumentException("order must be asc or desc");
+        };
+        List<Student> page = Database.getStudentsPageForUser(userId, sort, ascending,
+                after == null ? null : decodeCursor(sort, after), limit);
+        return page(page, sort, limit);
+    }
+
+    private static Response page(List<Student> page, StudentSort sort, int limit) {
+        String next = page.size() == limit ? encodeCursor(PageKey.of(sort, page.getLast())) : null;
+        return Response.json(200, "{\"students\":" + toJson(page) + ",\"next\":" + Json.quote(next) + "}");
+    }
+
+    private Response addStudent(HttpExchange exchange, int userId) throws SQLException, IOException {
+        Map<String, Object> body = readBody(exchange);
+        Object id = body.get("id");
+        if (!(id instanceof Long value) || value < 1 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("id must be a positive integer");
+        }
+        Student student = readStudent(body, value.intValue());
+        try {
+            Database.addStudentForUser(student, userId);
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("already exists")) {
+                throw new HttpError(409, e.getMessage());
+            }
+            throw e;
+        }
+        exchange.getResponseHeaders().set("Location", API + "/students/" + student.getId());
+        return Response.json(201, toJson(student));
+    }
+
+    private Response facets(HttpExchange exchange) throws SQLException {
+        requireMethod(exchange, "GET");
+        UserSession session = authenticate(exchange);
+        FacetCounts counts = Database.getFacetCountsForSearch(queryParameters(exchange).getOrDefault("q", ""), session.userId());
+        return Response.json(200, "{\"total\":" + counts.total()
+                + ",\"faculties\":" + toJson(counts.faculties())
+                + ",\"departments\":" + toJson(counts.departments())
+                + ",\"groups\":" + toJson(counts.groups()) + "}");
+    }
+
+    // Admin listener only: reachable from this machine, no session needed
+    private Response diagnostics(HttpExchange exchange) {
+        requireMethod(exchange, "GET");
+        return Response.text(Diagnostics.report()
+                + Database.getPoolStats() + "\n"
+                + Database.getExecutorStats() + "\n"
+                + Database.getWriteQueueStats() + "\n"
+                + Database.getRosterCacheStats() + "\n"
+                + Database.getCredentialCacheStats() + "\n"
+                + Database.getHasherStats() + "\n"
+                + "sessions=" + Session.store().size() + "\n");
+    }
+
+    // ---- Requests ----
+
+    private static UserSession authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        String token = header != null && header.regionMatches(true, 0, "Bearer ", 0, 7) ? header.substring(7).trim() : null;
+        return Session.store().get(token).orElseThrow(() -> new HttpError(401, "Login required"));
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw methodNotAllowed(exchange, method);
+        }
+    }
+
+    private static HttpError methodNotAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        return new HttpError(405, "Method not allowed");
+    }
+
+    private static HttpError studentNotFound(int studentId) {
+        return new HttpError(404, "Student with ID " + studentId + " not found");
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.putIfAbsent(name, value);
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static int parseStudentId(String value) {
+        try {
+            int id = Integer.parseInt(value);
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new HttpError(404, "Not found");
+    }
+
+    private static Student readStudent(Map<String, Object> body, int id) {
+        return new Student(id,
+                requiredString(body, "name").trim(),
+                requiredString(body, "surname").trim(),
+                optionalString(body, "faculty"),
+                optionalString(body, "department"),
+                optionalString(body, "group"));
+    }
+
+    private static String requiredString(Map<String, Object> body, String field) {
+        String value = optionalString(body, field);
+        if (value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    private static String optionalString(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (value == null) {
+            return "";
+        }
+        if (!(value instanceof String s)) {
+            throw new IllegalArgumentException(field + " must be a string");
+        }
+        if (s.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(field + " must be at most " + MAX_FIELD_LENGTH + " characters");
+        }
+        return s;
+    }
+
+    // The cursor is opaque to clients: base64url of "<student id>:<sort value>"
+    private static String encodeCursor(PageKey key) {
+        String raw = key.studentId() + ":" + key.sortValue();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PageKey decodeCursor(StudentSort sort, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            int studentId = Integer.parseInt(raw.substring(0, colon));
+            String value = raw.substring(colon + 1);
+            return new PageKey(sort == StudentSort.ID ? Integer.valueOf(value) : value, studentId);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // ---- JSON ----
+
+    private static String toJson(Student s) {
+        return "{\"id\":" + s.getId()
+                + ",\"name\":" + Json.quote(s.getName())
+                + ",\"surname\":" + Json.quote(s.getSurname())
+                + ",\"faculty\":" + Json.quote(s.getFaculty())
+                + ",\"department\":" + Json.quote(s.getDepartment())
+                + ",\"group\":" + Json.quote(s.getGroup()) + "}";
+    }
+
+    private static String toJson(List<Student> students) {
+        StringBuilder sb = new StringBuilder(students.size() * 128).append('[');
+        for (Student s : students) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(toJson(s));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String toJson(Map<String, Long> counts) {
+        StringBuilder sb = new StringBuilder().append('{');
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(Json.quote(e.getKey())).append(':').append(e.getValue());
+        }
+        return sb.append('}').toString();
+    }
+}
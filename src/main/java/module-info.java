@@ -3,6 +3,8 @@ module com.example.cms {
     requires javafx.fxml;
     requires java.sql;
     requires java.desktop;
+    requires jdk.jfr;
+    requires jdk.httpserver;
 
     opens com.example.cms to javafx.fxml;
     exports com.example.cms;
@@ -12,4 +14,7 @@ module com.example.cms {
     opens com.example.cms.models to javafx.fxml;
     exports com.example.cms.database;
     opens com.example.cms.database to javafx.fxml;
+    exports com.example.cms.diagnostics;
+    exports com.example.cms.security;
+    exports com.example.cms.server;
 }
\ No newline at end of file